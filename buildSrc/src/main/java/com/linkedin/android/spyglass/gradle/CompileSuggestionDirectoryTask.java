@@ -0,0 +1,112 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.gradle;
+
+import com.linkedin.android.spyglass.suggestions.SuggestionDirectoryWriter;
+
+import groovy.json.JsonSlurper;
+import org.gradle.api.DefaultTask;
+import org.gradle.api.GradleException;
+import org.gradle.api.file.RegularFileProperty;
+import org.gradle.api.provider.ListProperty;
+import org.gradle.api.tasks.Input;
+import org.gradle.api.tasks.InputFile;
+import org.gradle.api.tasks.OutputFile;
+import org.gradle.api.tasks.PathSensitive;
+import org.gradle.api.tasks.PathSensitivity;
+import org.gradle.api.tasks.TaskAction;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a JSON array of objects (i.e. people) into the binary directory format read by
+ * {@code com.linkedin.android.spyglass.suggestions.SuggestionDirectory}, so that apps can memory-map the directory
+ * instead of parsing JSON at runtime.
+ * <p>
+ * The primary text of every record is made of the values of {@link #getNameFields()}, separated by spaces, and the
+ * values of {@link #getFields()} are stored with it (missing values are stored as empty strings).
+ */
+public abstract class CompileSuggestionDirectoryTask extends DefaultTask {
+
+    @InputFile
+    @PathSensitive(PathSensitivity.RELATIVE)
+    public abstract RegularFileProperty getJsonFile();
+
+    @Input
+    public abstract ListProperty<String> getNameFields();
+
+    @Input
+    public abstract ListProperty<String> getFields();
+
+    @OutputFile
+    public abstract RegularFileProperty getOutputFile();
+
+    @TaskAction
+    public void compile() throws IOException {
+        File jsonFile = getJsonFile().get().getAsFile();
+        Object json = new JsonSlurper().parse(jsonFile);
+        if (!(json instanceof List)) {
+            throw new GradleException(jsonFile + " must contain a JSON array");
+        }
+
+        List<String> nameFields = getNameFields().get();
+        List<String> fields = getFields().get();
+        SuggestionDirectoryWriter writer = new SuggestionDirectoryWriter(fields);
+        for (Object element : (List<?>) json) {
+            if (!(element instanceof Map)) {
+                throw new GradleException(jsonFile + " must contain an array of objects");
+            }
+            Map<?, ?> object = (Map<?, ?>) element;
+
+            StringBuilder primaryText = new StringBuilder();
+            for (String nameField : nameFields) {
+                String value = getString(object, nameField);
+                if (!value.isEmpty()) {
+                    if (primaryText.length() > 0) {
+                        primaryText.append(' ');
+                    }
+                    primaryText.append(value);
+                }
+            }
+            List<String> values = new ArrayList<>(fields.size());
+            for (String field : fields) {
+                values.add(getString(object, field));
+            }
+            writer.addRecord(primaryText.toString(), values);
+        }
+
+        File outputFile = getOutputFile().get().getAsFile();
+        File outputDir = outputFile.getParentFile();
+        if (outputDir != null && !outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new GradleException("Could not create " + outputDir);
+        }
+        try (OutputStream out = new FileOutputStream(outputFile)) {
+            writer.write(out);
+        }
+        getLogger().info("Compiled {} records from {} into {}", writer.getRecordCount(), jsonFile, outputFile);
+    }
+
+    private static String getString(final Map<?, ?> object, final String field) {
+        Object value = object.get(field);
+        return (value != null) ? value.toString() : "";
+    }
+}
@@ -15,95 +15,106 @@
 package com.linkedin.android.spyglass.sample.data;
 
 import android.content.res.Resources;
-import android.os.AsyncTask;
+import android.util.JsonReader;
 import android.util.Log;
 
 import com.linkedin.android.spyglass.mentions.Mentionable;
+import com.linkedin.android.spyglass.suggestions.AsyncSuggestibleIndex;
+import com.linkedin.android.spyglass.suggestions.SuggestibleIndex;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
 
-import org.json.JSONArray;
-
 import java.io.BufferedReader;
-import java.io.InputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.lang.ref.WeakReference;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
- * Simple class to get suggestions from a JSONArray (represented as a file on disk), which can then
+ * Simple class to get suggestions from a JSON array (represented as a file on disk), which can then
  * be mentioned by the user by tapping on the suggestion.
  */
 public  abstract class MentionsLoader<T extends Mentionable> {
 
-    protected T[] mData;
     private static final String TAG = MentionsLoader.class.getSimpleName();
 
+    // Number of records that become searchable at once while the file is read
+    private static final int BATCH_SIZE = 256;
+
+    // Reads the files in the background, one at a time
+    private static final Executor LOAD_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    // Indexes of the batches read so far, searched until the index of all records is started (or if building it fails)
+    private final List<SuggestibleIndex<T>> mBatches = new CopyOnWriteArrayList<>();
+    private volatile AsyncSuggestibleIndex<T> mIndex;
+
     public MentionsLoader(final Resources res, final int resID) {
-        new LoadJSONArray(res, resID).execute();
+        LOAD_EXECUTOR.execute(() -> load(res, resID));
     }
 
-    public abstract T[] loadData(JSONArray arr);
+    // Reads a single record from the array, i.e. a string or an object
+    public abstract T readRecord(JsonReader reader) throws IOException;
 
-    // Returns a subset
+    // Returns a subset, found using an index of the words of every name (i.e. "jo" and "sm" both find "John Smith")
     public List<T> getSuggestions(QueryToken queryToken) {
-        String prefix = queryToken.getKeywords().toLowerCase();
+        // Note: The index answers queries from the records indexed so far while it is being built, so once it exists
+        // the batches are only searched if building it failed
+        AsyncSuggestibleIndex<T> index = mIndex;
+        if (index != null && index.getBuildFailure() == null) {
+            return index.getSuggestions(queryToken);
+        }
+
+        // Still reading the file, so search the records read so far
         List<T> suggestions = new ArrayList<>();
-        if (mData != null) {
-            for (T suggestion : mData) {
-                String name = suggestion.getSuggestiblePrimaryText().toLowerCase();
-                if (name.startsWith(prefix)) {
-                    suggestions.add(suggestion);
-                }
-            }
+        for (SuggestibleIndex<T> batch : mBatches) {
+            suggestions.addAll(batch.getSuggestions(queryToken));
         }
         return suggestions;
     }
 
-    // Loads data from JSONArray file, defined in the raw resources folder
-    private class LoadJSONArray extends AsyncTask<Void, Void, JSONArray> {
-
-        private final WeakReference<Resources> mRes;
-        private final int mResId;
-
-        public LoadJSONArray(Resources res, int resId) {
-            mRes = new WeakReference<>(res);
-            mResId = resId;
-        }
-
-        @Override
-        protected JSONArray doInBackground(Void... params) {
-            InputStream fileReader = mRes.get().openRawResource(mResId);
-            Writer writer = new StringWriter();
-            JSONArray arr = null;
-            try {
-                BufferedReader reader = new BufferedReader(new InputStreamReader(fileReader, StandardCharsets.UTF_8));
-                String line = reader.readLine();
-                while (line != null) {
-                    writer.write(line);
-                    line = reader.readLine();
+    // Streams the records from the JSON file, defined in the raw resources folder, so that the whole file is never held
+    // in memory and the first records can be suggested before the rest is read
+    private void load(Resources res, int resId) {
+        List<T> records = new ArrayList<>();
+        List<T> batch = new ArrayList<>(BATCH_SIZE);
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(res.openRawResource(resId), StandardCharsets.UTF_8)))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                T record = readRecord(reader);
+                if (record != null) {
+                    batch.add(record);
                 }
-                String jsonString = writer.toString();
-                arr = new JSONArray(jsonString);
-            } catch (Exception e) {
-                Log.e(TAG, "Unhandled exception while reading JSON", e);
-            } finally {
-                try {
-                    fileReader.close();
-                } catch (Exception e) {
-                    Log.e(TAG, "Unhandled exception while closing JSON file", e);
+                if (batch.size() == BATCH_SIZE) {
+                    publishBatch(batch, records);
+                    batch = new ArrayList<>(BATCH_SIZE);
                 }
             }
-            return arr;
+            reader.endArray();
+        } catch (Exception e) {
+            Log.e(TAG, "Unhandled exception while reading JSON", e);
         }
+        publishBatch(batch, records);
+
+        // Replace the batches by a single index, and release them as soon as it is built
+        AsyncSuggestibleIndex<T> index = new AsyncSuggestibleIndex<>(records);
+        mIndex = index;
+        try {
+            index.awaitIndex();
+            mBatches.clear();
+        } catch (RuntimeException e) {
+            // Note: The batches still hold every record, so they keep being searched
+            Log.e(TAG, "Unhandled exception while indexing records", e);
+        }
+    }
 
-        @Override
-        protected void onPostExecute(JSONArray arr) {
-            super.onPostExecute(arr);
-            mData = loadData(arr);
+    private void publishBatch(List<T> batch, List<T> records) {
+        if (!batch.isEmpty()) {
+            mBatches.add(new SuggestibleIndex<>(batch));
+            records.addAll(batch);
         }
     }
 }
@@ -17,14 +17,14 @@ package com.linkedin.android.spyglass.sample.data.models;
 import android.content.res.Resources;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.util.Log;
+import android.util.JsonReader;
 import androidx.annotation.NonNull;
 
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.sample.R;
 import com.linkedin.android.spyglass.sample.data.MentionsLoader;
 
-import org.json.JSONArray;
+import java.io.IOException;
 
 /**
  * Model representing a basic, mentionable city.
@@ -106,23 +106,14 @@ public class City implements Mentionable {
     // --------------------------------------------------
 
     public static class CityLoader extends MentionsLoader<City> {
-        private static final String TAG = CityLoader.class.getSimpleName();
 
         public CityLoader(Resources res) {
             super(res, R.raw.us_cities);
         }
 
         @Override
-        public City[] loadData(JSONArray arr) {
-            City[] data = new City[arr.length()];
-            try {
-                for (int i = 0; i < arr.length(); i++) {
-                    data[i] = new City(arr.getString(i));
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Unhandled exception while parsing city JSONArray", e);
-            }
-            return data;
+        public City readRecord(JsonReader reader) throws IOException {
+            return new City(reader.nextString());
         }
     }
 
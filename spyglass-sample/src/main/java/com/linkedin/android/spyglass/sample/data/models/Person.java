@@ -14,20 +14,21 @@
 
 package com.linkedin.android.spyglass.sample.data.models;
 
+import android.content.Context;
 import android.content.res.Resources;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.util.JsonReader;
 import android.util.Log;
 import androidx.annotation.NonNull;
 
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.sample.R;
 import com.linkedin.android.spyglass.sample.data.MentionsLoader;
+import com.linkedin.android.spyglass.suggestions.SuggestionDirectory;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -133,48 +134,71 @@ public class Person implements Mentionable {
     // --------------------------------------------------
 
     public static class PersonLoader extends MentionsLoader<Person> {
-        private static final String TAG = PersonLoader.class.getSimpleName();
 
         public PersonLoader(Resources res) {
             super(res, R.raw.people);
         }
 
         @Override
-        public Person[] loadData(JSONArray arr) {
-            Person[] data = new Person[arr.length()];
-            try {
-                for (int i = 0; i < arr.length(); i++) {
-                    JSONObject obj = arr.getJSONObject(i);
-                    String first = obj.getString("first");
-                    String last = obj.getString("last");
-                    String url = obj.getString("picture");
-                    data[i] = new Person(first, last, url);
+        public Person readRecord(JsonReader reader) throws IOException {
+            String first = "";
+            String last = "";
+            String url = "";
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "first":
+                        first = reader.nextString();
+                        break;
+                    case "last":
+                        last = reader.nextString();
+                        break;
+                    case "picture":
+                        url = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "Unhandled exception while parsing person JSONArray", e);
             }
+            reader.endObject();
+            return new Person(first, last, url);
+        }
+    }
+
+    // --------------------------------------------------
+    // PersonDirectory Class (finds people in the directory compiled from the JSON file at build time)
+    // --------------------------------------------------
+
+    public static class PersonDirectory {
+        private static final String TAG = PersonDirectory.class.getSimpleName();
+        private static final String ASSET = "people.spyd";
+
+        private SuggestionDirectory directory;
+        private int firstField;
+        private int lastField;
+        private int pictureField;
 
-            return data;
+        public PersonDirectory(Context context) {
+            // Note: The directory is memory-mapped, so opening it does not read or parse the records
+            try {
+                directory = SuggestionDirectory.open(context.getAssets().openFd(ASSET));
+                firstField = directory.getFieldIndex("first");
+                lastField = directory.getFieldIndex("last");
+                pictureField = directory.getFieldIndex("picture");
+            } catch (IOException e) {
+                Log.e(TAG, "Unhandled exception while opening person directory", e);
+            }
         }
 
-        // Modified to return suggestions based on both first and last name
-        @Override
         public List<Person> getSuggestions(QueryToken queryToken) {
-            String[] namePrefixes = queryToken.getKeywords().toLowerCase().split(" ");
             List<Person> suggestions = new ArrayList<>();
-            if (mData != null) {
-                for (Person suggestion : mData) {
-                    String firstName = suggestion.getFirstName().toLowerCase();
-                    String lastName = suggestion.getLastName().toLowerCase();
-                    if (namePrefixes.length == 2) {
-                        if (firstName.startsWith(namePrefixes[0]) && lastName.startsWith(namePrefixes[1])) {
-                            suggestions.add(suggestion);
-                        }
-                    } else {
-                        if (firstName.startsWith(namePrefixes[0]) || lastName.startsWith(namePrefixes[0])) {
-                            suggestions.add(suggestion);
-                        }
-                    }
+            if (directory != null) {
+                // Only the people that are suggested are read from the directory
+                for (int record : directory.findRecords(queryToken.getKeywords(), Integer.MAX_VALUE)) {
+                    suggestions.add(new Person(directory.getField(record, firstField),
+                            directory.getField(record, lastField),
+                            directory.getField(record, pictureField)));
                 }
             }
             return suggestions;
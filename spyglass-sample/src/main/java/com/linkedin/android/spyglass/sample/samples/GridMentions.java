@@ -27,6 +27,7 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.bumptech.glide.Glide;
 import com.linkedin.android.spyglass.sample.R;
 import com.linkedin.android.spyglass.sample.data.models.Person;
+import com.linkedin.android.spyglass.suggestions.SuggestionsRecyclerAdapter;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
@@ -37,7 +38,6 @@ import com.linkedin.android.spyglass.tokenization.impl.WordTokenizerConfig;
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.ui.MentionsEditText;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -58,7 +58,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
     private RecyclerView recyclerView;
     private MentionsEditText editor;
     private PersonMentionAdapter adapter;
-    private Person.PersonLoader people;
+    private Person.PersonDirectory people;
 
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -66,7 +66,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
 
         recyclerView = findViewById(R.id.mentions_grid);
         recyclerView.setLayoutManager(new GridLayoutManager(this, 2));
-        adapter = new PersonMentionAdapter(new ArrayList<Person>());
+        adapter = new PersonMentionAdapter();
         recyclerView.setAdapter(adapter);
 
         editor = findViewById(R.id.editor);
@@ -75,7 +75,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
         editor.setSuggestionsVisibilityManager(this);
         editor.setHint(getResources().getString(R.string.type_person));
 
-        people = new Person.PersonLoader(getResources());
+        people = new Person.PersonDirectory(this);
     }
 
     // --------------------------------------------------
@@ -99,8 +99,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
     @Override
     public void onReceiveSuggestionsResult(@NonNull SuggestionsResult result, @NonNull String bucket) {
         List<? extends Suggestible> suggestions = result.getSuggestions();
-        adapter = new PersonMentionAdapter(result.getSuggestions());
-        recyclerView.swapAdapter(adapter, true);
+        adapter.submitSuggestions(suggestions);
         boolean display = suggestions != null && suggestions.size() > 0;
         displaySuggestions(display);
     }
@@ -138,13 +137,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
         }
     }
 
-    private class PersonMentionAdapter extends RecyclerView.Adapter<ViewHolder> {
-
-        private List<? extends Suggestible> suggestions;
-
-        public PersonMentionAdapter(List<? extends Suggestible> people) {
-            suggestions = people;
-        }
+    private class PersonMentionAdapter extends SuggestionsRecyclerAdapter<ViewHolder> {
 
         @NonNull
         @Override
@@ -155,7 +148,7 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
 
         @Override
         public void onBindViewHolder(@NonNull ViewHolder viewHolder, int i) {
-            Suggestible suggestion = suggestions.get(i);
+            Suggestible suggestion = getItem(i);
             if (!(suggestion instanceof Person)) {
                 return;
             }
@@ -169,16 +162,11 @@ public class GridMentions extends AppCompatActivity implements QueryTokenReceive
 
             viewHolder.itemView.setOnClickListener(v -> {
                 editor.insertMention(person);
-                recyclerView.swapAdapter(new PersonMentionAdapter(new ArrayList<Person>()), true);
+                submitSuggestions(Collections.<Suggestible>emptyList());
                 displaySuggestions(false);
                 editor.requestFocus();
             });
         }
-
-        @Override
-        public int getItemCount() {
-            return suggestions.size();
-        }
     }
 
 }
\ No newline at end of file
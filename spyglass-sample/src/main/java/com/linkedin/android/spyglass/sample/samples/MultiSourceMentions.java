@@ -17,8 +17,6 @@ package com.linkedin.android.spyglass.sample.samples;
 import android.content.Context;
 import android.content.res.Resources;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -33,10 +31,10 @@ import com.linkedin.android.spyglass.sample.data.models.City;
 import com.linkedin.android.spyglass.sample.data.models.Person;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.impl.BasicSuggestionsListBuilder;
+import com.linkedin.android.spyglass.suggestions.impl.SuggestionSourceOrchestrator;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
-import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
-import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.ui.RichEditorView;
 
 import java.util.ArrayList;
@@ -45,7 +43,7 @@ import java.util.List;
 /**
  * Demonstrates how mentions are handled when there is a delay retrieving the suggestions (i.e. over a network).
  */
-public class MultiSourceMentions extends AppCompatActivity implements QueryTokenReceiver {
+public class MultiSourceMentions extends AppCompatActivity {
 
     private static final String PERSON_BUCKET = "people-database";
     private static final String CITY_BUCKET = "city-network";
@@ -67,7 +65,6 @@ public class MultiSourceMentions extends AppCompatActivity implements QueryToken
         setContentView(R.layout.multi_source_mentions);
 
         editor = findViewById(R.id.editor);
-        editor.setQueryTokenReceiver(this);
         editor.setSuggestionsListBuilder(new CustomSuggestionsListBuilder());
 
         people = new Person.PersonLoader(getResources());
@@ -79,6 +76,34 @@ public class MultiSourceMentions extends AppCompatActivity implements QueryToken
         citiesCheckBox = findViewById(R.id.city_checkbox);
         citiesCheckBox.setOnCheckedChangeListener((buttonView, isChecked) -> updateSuggestions());
 
+        // The orchestrator queries both sources in the background, and cancels their queries once the user keeps typing
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .addSource(new DelayedSource(PERSON_BUCKET, PERSON_DELAY, peopleCheckBox) {
+                    @NonNull
+                    @Override
+                    protected List<? extends Suggestible> load(@NonNull QueryToken queryToken) {
+                        return people.getSuggestions(queryToken);
+                    }
+                })
+                .addSource(new DelayedSource(CITY_BUCKET, CITY_DELAY, citiesCheckBox) {
+                    @NonNull
+                    @Override
+                    protected List<? extends Suggestible> load(@NonNull QueryToken queryToken) {
+                        return cities.getSuggestions(queryToken);
+                    }
+                })
+                .build();
+        // Note: The orchestrator reports results from background threads, so they are handed to the UI thread
+        orchestrator.setSuggestionsResultListener((result, bucket) -> runOnUiThread(() -> {
+            if (PERSON_BUCKET.equals(bucket)) {
+                lastPersonSuggestions = result;
+            } else {
+                lastCitySuggestions = result;
+            }
+            editor.onReceiveSuggestionsResult(result, bucket);
+        }));
+        editor.setQueryTokenReceiver(orchestrator);
+
         updateSuggestions();
     }
 
@@ -115,41 +140,42 @@ public class MultiSourceMentions extends AppCompatActivity implements QueryToken
     }
 
     // --------------------------------------------------
-    // QueryTokenReceiver Implementation
+    // Sources simulating a delay
     // --------------------------------------------------
 
-    @Override
-    public List<String> onQueryReceived(final @NonNull QueryToken queryToken) {
-        final boolean hasPeople = peopleCheckBox.isChecked();
-        final boolean hasCities = citiesCheckBox.isChecked();
+    private abstract static class DelayedSource implements SuggestionSource {
 
-        final List<String> buckets = new ArrayList<>();
-        final SuggestionsResultListener listener = editor;
-        final Handler handler = new Handler(Looper.getMainLooper());
-
-        // Fetch people if necessary
-        if (hasPeople) {
-            buckets.add(PERSON_BUCKET);
-            handler.postDelayed(() -> {
-                List<Person> suggestions = people.getSuggestions(queryToken);
-                lastPersonSuggestions = new SuggestionsResult(queryToken, suggestions);
-                listener.onReceiveSuggestionsResult(lastPersonSuggestions, PERSON_BUCKET);
-            }, PERSON_DELAY);
+        private final String bucket;
+        private final int delay;
+        private final CheckBox checkBox;
+
+        DelayedSource(@NonNull String bucket, int delay, @NonNull CheckBox checkBox) {
+            this.bucket = bucket;
+            this.delay = delay;
+            this.checkBox = checkBox;
         }
 
-        // Fetch cities if necessary
-        if (hasCities) {
-            buckets.add(CITY_BUCKET);
-            handler.postDelayed(() -> {
-                List<City> suggestions = cities.getSuggestions(queryToken);
-                lastCitySuggestions = new SuggestionsResult(queryToken, suggestions);
-                listener.onReceiveSuggestionsResult(lastCitySuggestions, CITY_BUCKET);
-            }, CITY_DELAY);
+        @NonNull
+        @Override
+        public String getBucket() {
+            return bucket;
         }
 
-        // Return buckets, one for each source (serves as promise to editor that we will call
-        // onReceiveSuggestionsResult at a later time)
-        return buckets;
+        @Override
+        public boolean canHandle(@NonNull QueryToken queryToken) {
+            return checkBox.isChecked();
+        }
+
+        @NonNull
+        @Override
+        public List<? extends Suggestible> getSuggestions(@NonNull QueryToken queryToken) throws Exception {
+            // Sleeping is interrupted if the query is cancelled
+            Thread.sleep(delay);
+            return load(queryToken);
+        }
+
+        @NonNull
+        protected abstract List<? extends Suggestible> load(@NonNull QueryToken queryToken);
     }
 
     // --------------------------------------------------
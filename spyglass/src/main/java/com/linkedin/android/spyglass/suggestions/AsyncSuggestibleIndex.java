@@ -0,0 +1,283 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * {@link SuggestibleIndex} of a large directory that is built in the background, in parallel on all cores, and can be
+ * queried while it is being built.
+ * <p>
+ * The suggestibles are split into shards that are indexed in parallel by a {@link ForkJoinPool}, and the indexes of the
+ * shards are then merged pairwise into the final index. Until the final index is ready, queries are answered from the
+ * shards that have been indexed so far, so suggestions are available right away and become complete over time (shards
+ * are queried in order, so the suggestions are only sorted by name within each shard).
+ * <p>
+ * If the {@link SuggestibleIndex.NameExtractor} throws, the final index is never built: queries keep being answered
+ * from the shards indexed before the failure, and the failure is available from {@link #getBuildFailure()}.
+ *
+ * @param <T> the type of the indexed suggestibles
+ */
+public class AsyncSuggestibleIndex<T extends Suggestible> {
+
+    // Default number of suggestibles indexed by each task
+    public static final int DEFAULT_SHARD_SIZE = 4096;
+
+    @Nullable private static ForkJoinPool sDefaultPool;
+
+    private final List<T> mItems;
+    private final SuggestibleIndex.NameExtractor<? super T> mNameExtractor;
+    private final int mShardSize;
+
+    // Indexes of the shards built so far, in order (null once the final index is ready), and the number of suggestibles
+    // they contain
+    @Nullable private volatile AtomicReferenceArray<SuggestibleIndex<T>> mShards;
+    private final AtomicInteger mIndexedCount = new AtomicInteger();
+
+    @Nullable private volatile SuggestibleIndex<T> mIndex;
+    @Nullable private volatile RuntimeException mBuildFailure;
+    private final BuildTask mBuildTask;
+
+    /**
+     * Starts building an index of the given suggestibles, by their primary text.
+     *
+     * @param suggestibles the suggestibles to index
+     */
+    public AsyncSuggestibleIndex(final @NonNull Collection<? extends T> suggestibles) {
+        this(suggestibles, suggestible -> Collections.singletonList(suggestible.getSuggestiblePrimaryText()));
+    }
+
+    /**
+     * Starts building an index of the given suggestibles, by the names provided by the given
+     * {@link SuggestibleIndex.NameExtractor}.
+     *
+     * @param suggestibles  the suggestibles to index
+     * @param nameExtractor the {@link SuggestibleIndex.NameExtractor} providing the names of each suggestible (called
+     *                      from several threads)
+     */
+    public AsyncSuggestibleIndex(final @NonNull Collection<? extends T> suggestibles,
+                                 final @NonNull SuggestibleIndex.NameExtractor<? super T> nameExtractor) {
+        this(suggestibles, nameExtractor, getDefaultPool(), DEFAULT_SHARD_SIZE);
+    }
+
+    /**
+     * Starts building an index of the given suggestibles in the given pool.
+     *
+     * @param suggestibles  the suggestibles to index
+     * @param nameExtractor the {@link SuggestibleIndex.NameExtractor} providing the names of each suggestible (called
+     *                      from several threads)
+     * @param pool          the {@link ForkJoinPool} to build the index in
+     * @param shardSize     the number of suggestibles indexed by each task
+     */
+    public AsyncSuggestibleIndex(final @NonNull Collection<? extends T> suggestibles,
+                                 final @NonNull SuggestibleIndex.NameExtractor<? super T> nameExtractor,
+                                 final @NonNull ForkJoinPool pool,
+                                 final int shardSize) {
+        mItems = Collections.unmodifiableList(new ArrayList<T>(suggestibles));
+        mNameExtractor = nameExtractor;
+        mShardSize = Math.max(shardSize, 1);
+        mShards = new AtomicReferenceArray<>((mItems.size() + mShardSize - 1) / mShardSize);
+        mBuildTask = new BuildTask(0, mItems.size());
+        pool.execute(mBuildTask);
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * @return true once the final index is ready
+     */
+    public boolean isComplete() {
+        return mIndex != null;
+    }
+
+    /**
+     * @return the exception thrown while building the index (i.e. by the {@link SuggestibleIndex.NameExtractor}), or
+     * null if the index was built or is still being built
+     */
+    @Nullable
+    public RuntimeException getBuildFailure() {
+        return mBuildFailure;
+    }
+
+    /**
+     * @return the number of suggestibles that can be found by queries so far
+     */
+    public int getIndexedCount() {
+        return mIndexedCount.get();
+    }
+
+    /**
+     * @return the final index, or null if it is still being built
+     */
+    @Nullable
+    public SuggestibleIndex<T> getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Waits for the final index to be built.
+     *
+     * @return the final index
+     *
+     * @throws RuntimeException if building the index failed (see {@link #getBuildFailure()})
+     */
+    @NonNull
+    @WorkerThread
+    public SuggestibleIndex<T> awaitIndex() {
+        return mBuildTask.join();
+    }
+
+    /**
+     * Returns all suggestibles matching the keywords of the given {@link QueryToken}, among those indexed so far.
+     *
+     * @param queryToken the {@link QueryToken} to find suggestibles for
+     *
+     * @return the matching suggestibles
+     */
+    @NonNull
+    public List<T> getSuggestions(final @NonNull QueryToken queryToken) {
+        return getSuggestions(queryToken.getKeywords(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the suggestibles that have a name matching the given keywords, among those indexed so far. See
+     * {@link SuggestibleIndex#getSuggestions(String, int)}.
+     *
+     * @param keywords   the keywords to match
+     * @param maxResults the maximum number of suggestibles to return
+     *
+     * @return the matching suggestibles, each at most once
+     */
+    @NonNull
+    public List<T> getSuggestions(final @NonNull String keywords, final int maxResults) {
+        SuggestibleIndex<T> index = mIndex;
+        AtomicReferenceArray<SuggestibleIndex<T>> shards = mShards;
+        if (shards == null) {
+            // Note: The final index is set before the shards are released
+            index = mIndex;
+        }
+        if (index != null) {
+            return index.getSuggestions(keywords, maxResults);
+        }
+
+        List<T> suggestions = new ArrayList<>();
+        for (int i = 0; i < shards.length() && suggestions.size() < maxResults; i++) {
+            SuggestibleIndex<T> shard = shards.get(i);
+            if (shard != null) {
+                suggestions.addAll(shard.getSuggestions(keywords, maxResults - suggestions.size()));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns a {@link SuggestionSource} answering queries from this index, to use it as a local bucket.
+     *
+     * @param bucket the bucket to place the suggestions into
+     *
+     * @return the {@link SuggestionSource}
+     */
+    @NonNull
+    public SuggestionSource asSource(final @NonNull String bucket) {
+        return new LocalSuggestionSource(bucket, this::getSuggestions);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    @NonNull
+    private static synchronized ForkJoinPool getDefaultPool() {
+        if (sDefaultPool == null) {
+            sDefaultPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+        return sDefaultPool;
+    }
+
+    /**
+     * Task indexing a range of the suggestibles, by indexing the two halves in parallel and merging their indexes.
+     */
+    private class BuildTask extends RecursiveTask<SuggestibleIndex<T>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int mFrom;
+        private final int mTo;
+
+        BuildTask(final int from, final int to) {
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected SuggestibleIndex<T> compute() {
+            SuggestibleIndex<T> index;
+            if (mTo - mFrom <= mShardSize) {
+                try {
+                    index = new SuggestibleIndex<>(mItems, mNameExtractor, mFrom, mTo);
+                } catch (RuntimeException e) {
+                    // Note: The exception is rethrown so the tasks waiting for this shard fail too
+                    if (mBuildFailure == null) {
+                        mBuildFailure = e;
+                        Log.e(AsyncSuggestibleIndex.class.getName(), "Failed to build the suggestible index", e);
+                    }
+                    throw e;
+                }
+                publishShard(index);
+            } else {
+                // Split on a shard boundary, so that every shard has its own slot
+                int shards = (mTo - mFrom + mShardSize - 1) / mShardSize;
+                int middle = mFrom + (shards / 2) * mShardSize;
+                BuildTask first = new BuildTask(mFrom, middle);
+                first.fork();
+                SuggestibleIndex<T> second = new BuildTask(middle, mTo).compute();
+                index = SuggestibleIndex.merge(first.join(), second);
+            }
+
+            if (mFrom == 0 && mTo == mItems.size()) {
+                mIndex = index;
+                mShards = null;
+            }
+            return index;
+        }
+
+        private void publishShard(final @NonNull SuggestibleIndex<T> shard) {
+            AtomicReferenceArray<SuggestibleIndex<T>> shards = mShards;
+            if (shards != null && mFrom < mTo) {
+                shards.set(mFrom / mShardSize, shard);
+            }
+            mIndexedCount.addAndGet(mTo - mFrom);
+        }
+    }
+}
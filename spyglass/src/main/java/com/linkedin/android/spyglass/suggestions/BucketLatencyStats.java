@@ -0,0 +1,92 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+/**
+ * Immutable summary of how long a bucket took to report its results, measured from the time the {@link
+ * com.linkedin.android.spyglass.tokenization.QueryToken} was received by the {@link SuggestionsAdapter}. Useful to tune
+ * the deadlines of a {@link SuggestionsDisplayPolicy}.
+ */
+public final class BucketLatencyStats {
+
+    static final BucketLatencyStats EMPTY = new BucketLatencyStats(0, 0, 0, 0, 0);
+
+    private final int mCount;
+    private final int mDroppedCount;
+    private final long mTotalMillis;
+    private final long mMaxMillis;
+    private final long mLastMillis;
+
+    private BucketLatencyStats(final int count,
+                               final int droppedCount,
+                               final long totalMillis,
+                               final long maxMillis,
+                               final long lastMillis) {
+        mCount = count;
+        mDroppedCount = droppedCount;
+        mTotalMillis = totalMillis;
+        mMaxMillis = maxMillis;
+        mLastMillis = lastMillis;
+    }
+
+    /**
+     * Returns new stats including another result reported by the bucket.
+     *
+     * @param latencyMillis time between the query and its result
+     * @param dropped       true if the result was dropped for missing its deadline
+     *
+     * @return the updated stats
+     */
+    BucketLatencyStats record(final long latencyMillis, final boolean dropped) {
+        return new BucketLatencyStats(mCount + 1, mDroppedCount + (dropped ? 1 : 0), mTotalMillis + latencyMillis,
+                Math.max(mMaxMillis, latencyMillis), latencyMillis);
+    }
+
+    /**
+     * @return the number of results reported by the bucket, including dropped ones
+     */
+    public int getCount() {
+        return mCount;
+    }
+
+    /**
+     * @return the number of results dropped because they were reported after the drop deadline
+     */
+    public int getDroppedCount() {
+        return mDroppedCount;
+    }
+
+    /**
+     * @return the average latency of the bucket, in milliseconds
+     */
+    public long getMeanMillis() {
+        return (mCount > 0) ? mTotalMillis / mCount : 0;
+    }
+
+    /**
+     * @return the highest latency of the bucket, in milliseconds
+     */
+    public long getMaxMillis() {
+        return mMaxMillis;
+    }
+
+    /**
+     * @return the latency of the latest result of the bucket, in milliseconds
+     */
+    public long getLastMillis() {
+        return mLastMillis;
+    }
+}
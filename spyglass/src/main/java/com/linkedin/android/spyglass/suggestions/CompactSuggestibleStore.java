@@ -0,0 +1,490 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.Mentionable;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact, immutable store of a large directory of mentionable records (i.e. 100k people), which can be searched like
+ * a {@link SuggestibleIndex}. Instantiate using the {@link CompactSuggestibleStore.Builder} class.
+ * <p>
+ * Instead of one object (and several strings) per record, all the text of the records is packed as UTF-8 into a
+ * single shared {@code byte[]} arena, addressed by {@code int} offset tables, and the sorted keys used for searching
+ * are offsets into a second arena holding the normalized names. Holding the directory therefore costs a few arrays,
+ * and searching it only allocates for the records it returns (matching keys are not boxed). {@link Entry} views are
+ * only created for those records, and only decode their text into strings when it is requested.
+ */
+public class CompactSuggestibleStore {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final int mFieldCount;
+    private final Mentionable.MentionDeleteStyle mDeleteStyle;
+
+    // Text of every record (its primary text, then its fields), and the offset of each string in the arena (the string
+    // i ends where the string i + 1 starts)
+    private final byte[] mBytes;
+    private final int[] mOffsets;
+    private final int[] mIds;
+
+    // Normalized primary text of every record, and the offset where each one ends in the arena
+    private final byte[] mNameBytes;
+    private final int[] mNameEnds;
+
+    // Sorted keys (offsets in mNameBytes, from the start of a word to the end of the name) and their records
+    private final int[] mKeyStarts;
+    private final int[] mKeyRecords;
+    private final KeyTable mKeyTable = new Keys();
+
+    private CompactSuggestibleStore(final @NonNull Builder builder) {
+        mFieldCount = builder.fieldCount;
+        mDeleteStyle = builder.deleteStyle;
+        final int count = builder.count;
+        mBytes = Arrays.copyOf(builder.bytes, builder.byteCount);
+        mOffsets = Arrays.copyOf(builder.offsets, builder.stringCount + 1);
+        mOffsets[builder.stringCount] = builder.byteCount;
+        mIds = Arrays.copyOf(builder.ids, count);
+
+        // Normalize the primary texts into the second arena, and create a key for every word
+        ByteArrayOutputStream names = new ByteArrayOutputStream();
+        mNameEnds = new int[count];
+        int[] keyStarts = new int[Math.max(count, 1)];
+        int[] keyRecords = new int[keyStarts.length];
+        int keyCount = 0;
+        for (int record = 0; record < count; record++) {
+            byte[] name = SuggestionDirectoryWriter.normalize(getString(record, 0)).getBytes(UTF_8);
+            int nameStart = names.size();
+            names.write(name, 0, name.length);
+            mNameEnds[record] = names.size();
+            for (int i = 0; i < name.length; i++) {
+                if (i == 0 || name[i - 1] == ' ') {
+                    if (keyCount == keyStarts.length) {
+                        keyStarts = Arrays.copyOf(keyStarts, keyCount * 2);
+                        keyRecords = Arrays.copyOf(keyRecords, keyCount * 2);
+                    }
+                    keyStarts[keyCount] = nameStart + i;
+                    keyRecords[keyCount] = record;
+                    keyCount++;
+                }
+            }
+        }
+        mNameBytes = names.toByteArray();
+
+        // Sort the keys by their text, then by record
+        int[] order = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            order[i] = i;
+        }
+        sortKeys(order, new int[keyCount], 0, keyCount, keyStarts, keyRecords);
+        mKeyStarts = new int[keyCount];
+        mKeyRecords = new int[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            mKeyStarts[i] = keyStarts[order[i]];
+            mKeyRecords[i] = keyRecords[order[i]];
+        }
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the number of records in the store
+     */
+    public int size() {
+        return mIds.length;
+    }
+
+    /**
+     * @return the approximate number of bytes used by the arrays of the store
+     */
+    public long getFootprintBytes() {
+        return mBytes.length + mNameBytes.length
+                + 4L * (mOffsets.length + mIds.length + mNameEnds.length + mKeyStarts.length + mKeyRecords.length);
+    }
+
+    /**
+     * Returns views of all records matching the keywords of the given {@link QueryToken}.
+     *
+     * @param queryToken the {@link QueryToken} to find records for
+     *
+     * @return the matching records
+     */
+    @NonNull
+    public List<Entry> getSuggestions(final @NonNull QueryToken queryToken) {
+        return getSuggestions(queryToken.getKeywords(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns views of the records whose primary text matches the given keywords, with the same matching as
+     * {@link SuggestibleIndex#getSuggestions(String, int)}.
+     *
+     * @param keywords   the keywords to match
+     * @param maxResults the maximum number of records to return
+     *
+     * @return the matching records, each at most once
+     */
+    @NonNull
+    public List<Entry> getSuggestions(final @NonNull String keywords, final int maxResults) {
+        String[] words = KeyTable.splitKeywords(keywords);
+        List<Entry> entries = new ArrayList<>();
+        if (words.length == 0) {
+            for (int record = 0; record < mIds.length && entries.size() < maxResults; record++) {
+                entries.add(new Entry(this, record));
+            }
+            return entries;
+        }
+
+        for (int record : mKeyTable.findRecords(words, maxResults)) {
+            entries.add(new Entry(this, record));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns a {@link SuggestionSource} answering queries from this store, to use it as a local bucket.
+     *
+     * @param bucket the bucket to place the suggestions into
+     *
+     * @return the {@link SuggestionSource}
+     */
+    @NonNull
+    public SuggestionSource asSource(final @NonNull String bucket) {
+        return new LocalSuggestionSource(bucket, this::getSuggestions);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the string of the given record at the given position (0 for the primary text, then each field)
+     */
+    @NonNull
+    private String getString(final int record, final int position) {
+        int index = record * (mFieldCount + 1) + position;
+        return new String(mBytes, mOffsets[index], mOffsets[index + 1] - mOffsets[index], UTF_8);
+    }
+
+    /**
+     * Sorts a range of key ids by the text of their keys, then by record. This is a merge sort over primitive ids, so
+     * building the store does not box every key.
+     */
+    private void sortKeys(final @NonNull int[] order, final @NonNull int[] scratch, final int from, final int to,
+                          final @NonNull int[] keyStarts, final @NonNull int[] keyRecords) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortKeys(order, scratch, from, middle, keyStarts, keyRecords);
+        sortKeys(order, scratch, middle, to, keyStarts, keyRecords);
+        System.arraycopy(order, from, scratch, from, to - from);
+        int i = from;
+        int j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < middle && compareKeys(scratch[i], scratch[j], keyStarts, keyRecords) <= 0)) {
+                order[k] = scratch[i++];
+            } else {
+                order[k] = scratch[j++];
+            }
+        }
+    }
+
+    private int compareKeys(final int first, final int second, final @NonNull int[] keyStarts,
+                            final @NonNull int[] keyRecords) {
+        int firstStart = keyStarts[first];
+        int firstLength = mNameEnds[keyRecords[first]] - firstStart;
+        int secondStart = keyStarts[second];
+        int secondLength = mNameEnds[keyRecords[second]] - secondStart;
+        int common = Math.min(firstLength, secondLength);
+        for (int i = 0; i < common; i++) {
+            int a = mNameBytes[firstStart + i] & 0xff;
+            int b = mNameBytes[secondStart + i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return (firstLength != secondLength)
+                ? firstLength - secondLength
+                : Integer.compare(keyRecords[first], keyRecords[second]);
+    }
+
+    /**
+     * Gives the search access to the sorted keys, as the unsigned bytes of the normalized names.
+     */
+    private class Keys extends KeyTable {
+
+        @Override
+        int getKeyCount() {
+            return mKeyStarts.length;
+        }
+
+        @Override
+        int getKeyLength(final int key) {
+            return mNameEnds[mKeyRecords[key]] - mKeyStarts[key];
+        }
+
+        @Override
+        int getKeyUnit(final int key, final int offset) {
+            return mNameBytes[mKeyStarts[key] + offset] & 0xff;
+        }
+
+        @Override
+        int getKeyRecord(final int key) {
+            return mKeyRecords[key];
+        }
+
+        @NonNull
+        @Override
+        int[] encode(final @NonNull String word) {
+            byte[] bytes = word.getBytes(UTF_8);
+            int[] units = new int[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                units[i] = bytes[i] & 0xff;
+            }
+            return units;
+        }
+    }
+
+    // --------------------------------------------------
+    // Entry
+    // --------------------------------------------------
+
+    /**
+     * Lightweight {@link Mentionable} view of a record of a {@link CompactSuggestibleStore}. When parceled (i.e. as
+     * part of the state of a {@link com.linkedin.android.spyglass.ui.MentionsEditText}), the text of the record is
+     * decoded, so the restored entry no longer refers to the store.
+     */
+    public static class Entry implements Mentionable {
+
+        // Store and record of a view, or null and -1 once restored from a parcel
+        private final CompactSuggestibleStore mStore;
+        private final int mRecord;
+        private final int mId;
+        private final MentionDeleteStyle mDeleteStyle;
+
+        // Strings of a restored entry, or of a view once they were requested
+        private String[] mStrings;
+
+        Entry(final @NonNull CompactSuggestibleStore store, final int record) {
+            mStore = store;
+            mRecord = record;
+            mId = store.mIds[record];
+            mDeleteStyle = store.mDeleteStyle;
+        }
+
+        /**
+         * @param position the index of the field, in the order given to {@link Builder#add(int, String, String...)}
+         *
+         * @return the value of the field
+         */
+        @NonNull
+        public String getField(final int position) {
+            return getString(position + 1);
+        }
+
+        @NonNull
+        @Override
+        public String getTextForDisplayMode(final @NonNull MentionDisplayMode mode) {
+            switch (mode) {
+                case FULL:
+                    return getSuggestiblePrimaryText();
+                case PARTIAL:
+                    String[] words = getSuggestiblePrimaryText().split(" ");
+                    return (words.length > 1) ? words[0] : "";
+                case NONE:
+                default:
+                    return "";
+            }
+        }
+
+        @NonNull
+        @Override
+        public MentionDeleteStyle getDeleteStyle() {
+            return mDeleteStyle;
+        }
+
+        @Override
+        public int getSuggestibleId() {
+            return mId;
+        }
+
+        @NonNull
+        @Override
+        public String getSuggestiblePrimaryText() {
+            return getString(0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return getSuggestibleId() == other.getSuggestibleId()
+                    && getSuggestiblePrimaryText().equals(other.getSuggestiblePrimaryText());
+        }
+
+        @Override
+        public int hashCode() {
+            return getSuggestibleId();
+        }
+
+        @NonNull
+        private synchronized String getString(final int position) {
+            if (mStrings == null) {
+                mStrings = new String[mStore.mFieldCount + 1];
+            }
+            if (mStrings[position] == null) {
+                mStrings[position] = mStore.getString(mRecord, position);
+            }
+            return mStrings[position];
+        }
+
+        // --------------------------------------------------
+        // Parcelable Implementation
+        // --------------------------------------------------
+
+        private Entry(final @NonNull Parcel in) {
+            mStore = null;
+            mRecord = -1;
+            mId = in.readInt();
+            mDeleteStyle = MentionDeleteStyle.values()[in.readInt()];
+            mStrings = in.createStringArray();
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(final Parcel dest, final int flags) {
+            int stringCount = (mStore != null) ? mStore.mFieldCount + 1 : mStrings.length;
+            String[] strings = new String[stringCount];
+            for (int i = 0; i < stringCount; i++) {
+                strings[i] = getString(i);
+            }
+            dest.writeInt(getSuggestibleId());
+            dest.writeInt(getDeleteStyle().ordinal());
+            dest.writeStringArray(strings);
+        }
+
+        public static final Parcelable.Creator<Entry> CREATOR = new Parcelable.Creator<Entry>() {
+            @Override
+            public Entry createFromParcel(Parcel in) {
+                return new Entry(in);
+            }
+
+            @Override
+            public Entry[] newArray(int size) {
+                return new Entry[size];
+            }
+        };
+    }
+
+    // --------------------------------------------------
+    // Builder
+    // --------------------------------------------------
+
+    public static class Builder {
+
+        // Number of fields of every record, besides its primary text
+        private final int fieldCount;
+
+        // Default values for configuration
+        private Mentionable.MentionDeleteStyle deleteStyle = Mentionable.MentionDeleteStyle.FULL_DELETE;
+
+        // Records added so far
+        private byte[] bytes = new byte[1024];
+        private int byteCount = 0;
+        private int[] offsets = new int[64];
+        private int stringCount = 0;
+        private int[] ids = new int[16];
+        private int count = 0;
+
+        /**
+         * @param fieldCount the number of fields of every record, besides its primary text (i.e. 1 for a picture URL)
+         */
+        public Builder(int fieldCount) {
+            this.fieldCount = Math.max(fieldCount, 0);
+        }
+
+        @NonNull
+        public Builder setDeleteStyle(@NonNull Mentionable.MentionDeleteStyle deleteStyle) {
+            this.deleteStyle = deleteStyle;
+            return this;
+        }
+
+        /**
+         * Adds a record. The strings are encoded into the arena, so they can be discarded afterwards.
+         *
+         * @param id          the unique id of the record (see {@link Suggestible#getSuggestibleId()})
+         * @param primaryText the text to display and find the record by
+         * @param fields      the value of every field of the record
+         */
+        @NonNull
+        public Builder add(int id, @NonNull String primaryText, @NonNull String... fields) {
+            if (fields.length != fieldCount) {
+                throw new IllegalArgumentException("Expected " + fieldCount + " fields, got " + fields.length);
+            }
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+            }
+            ids[count] = id;
+            appendString(primaryText);
+            for (String field : fields) {
+                appendString(field);
+            }
+            count++;
+            return this;
+        }
+
+        @NonNull
+        public CompactSuggestibleStore build() {
+            return new CompactSuggestibleStore(this);
+        }
+
+        private void appendString(@NonNull String text) {
+            if (stringCount + 1 >= offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[stringCount++] = byteCount;
+            byte[] encoded = text.getBytes(UTF_8);
+            if (byteCount + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, byteCount + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, byteCount, encoded.length);
+            byteCount += encoded.length;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Sorted table of keys, searched the same way by {@link SuggestibleIndex}, {@link SuggestionDirectory} and
+ * {@link CompactSuggestibleStore}.
+ * <p>
+ * Every key is a normalized name (see {@link SuggestionDirectoryWriter#normalize(String)}) from the start of one of
+ * its words to its end, and belongs to a record. Subclasses only provide access to the keys, as units (i.e. chars, or
+ * the bytes of an encoded name) sorting in the same order as the keys, and in which words are separated by spaces.
+ */
+abstract class KeyTable {
+
+    /**
+     * @return the number of keys in the table
+     */
+    abstract int getKeyCount();
+
+    /**
+     * @return the number of units of the given key
+     */
+    abstract int getKeyLength(int key);
+
+    /**
+     * @return the unit of the given key at the given offset
+     */
+    abstract int getKeyUnit(int key, int offset);
+
+    /**
+     * @return the record that the given key belongs to (never negative)
+     */
+    abstract int getKeyRecord(int key);
+
+    /**
+     * Encodes a normalized word into units comparable with the units of the keys. By default, these are its chars.
+     */
+    @NonNull
+    int[] encode(final @NonNull String word) {
+        int[] units = new int[word.length()];
+        for (int i = 0; i < units.length; i++) {
+            units[i] = word.charAt(i);
+        }
+        return units;
+    }
+
+    /**
+     * @return the normalized words of the given keywords (empty if there are none)
+     */
+    @NonNull
+    static String[] splitKeywords(final @NonNull String keywords) {
+        String normalized = SuggestionDirectoryWriter.normalize(keywords);
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    /**
+     * Finds the records with a key matching the given words: the first word must be a prefix of the key, and the
+     * following words prefixes of the following words of the key.
+     *
+     * @param words      the normalized words to match (see {@link #splitKeywords(String)}), at least one
+     * @param maxResults the maximum number of records to return
+     *
+     * @return the matching records, each at most once, in the order of their matching keys
+     */
+    @NonNull
+    final int[] findRecords(final @NonNull String[] words, final int maxResults) {
+        int[][] units = new int[words.length][];
+        for (int i = 0; i < words.length; i++) {
+            units[i] = encode(words[i]);
+        }
+
+        int[] records = new int[Math.min(Math.max(maxResults, 0), 16)];
+        int count = 0;
+        RecordSet found = new RecordSet();
+        final int keyCount = getKeyCount();
+        for (int key = lowerBound(units[0]); key < keyCount && count < maxResults; key++) {
+            if (!regionStartsWith(key, 0, units[0])) {
+                break;
+            }
+            if (units.length > 1 && !matchesFollowingWords(key, units)) {
+                continue;
+            }
+            int record = getKeyRecord(key);
+            if (found.add(record)) {
+                if (count == records.length) {
+                    records = Arrays.copyOf(records, (int) Math.min(records.length * 2L, maxResults));
+                }
+                records[count++] = record;
+            }
+        }
+        return (count == records.length) ? records : Arrays.copyOf(records, count);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the index of the first key that is not less than the given units
+     */
+    private int lowerBound(final @NonNull int[] units) {
+        int low = 0;
+        int high = getKeyCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareKey(mid, units) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares a key to the given units, like {@link String#compareTo(String)}.
+     */
+    private int compareKey(final int key, final @NonNull int[] units) {
+        int length = getKeyLength(key);
+        int common = Math.min(length, units.length);
+        for (int i = 0; i < common; i++) {
+            int unit = getKeyUnit(key, i);
+            if (unit != units[i]) {
+                return unit - units[i];
+            }
+        }
+        return length - units.length;
+    }
+
+    private boolean regionStartsWith(final int key, final int offset, final @NonNull int[] prefix) {
+        if (getKeyLength(key) - offset < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (getKeyUnit(key, offset + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Determines whether the words of a key after its first one start with the words after the first one.
+     */
+    private boolean matchesFollowingWords(final int key, final @NonNull int[][] words) {
+        int length = getKeyLength(key);
+        int position = 0;
+        for (int i = 1; i < words.length; i++) {
+            // Skip to the start of the next word of the key
+            while (position < length && getKeyUnit(key, position) != ' ') {
+                position++;
+            }
+            position++;
+            if (position > length || !regionStartsWith(key, position, words[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // --------------------------------------------------
+    // RecordSet
+    // --------------------------------------------------
+
+    /**
+     * Set of records found by a query (open addressing over an int array, so records are not boxed).
+     */
+    private static final class RecordSet {
+
+        private static final int EMPTY = -1;
+
+        private int[] mSlots = newSlots(16);
+        private int mSize = 0;
+
+        /**
+         * @return true if the record was not in the set yet
+         */
+        boolean add(final int record) {
+            if ((mSize + 1) * 2 > mSlots.length) {
+                int[] slots = newSlots(mSlots.length * 2);
+                for (int slot : mSlots) {
+                    if (slot != EMPTY) {
+                        insert(slots, slot);
+                    }
+                }
+                mSlots = slots;
+            }
+            if (insert(mSlots, record)) {
+                mSize++;
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean insert(final @NonNull int[] slots, final int record) {
+            final int mask = slots.length - 1;
+            int hash = record * 0x9E3779B9;
+            for (int i = (hash ^ (hash >>> 16)) & mask; ; i = (i + 1) & mask) {
+                if (slots[i] == record) {
+                    return false;
+                }
+                if (slots[i] == EMPTY) {
+                    slots[i] = record;
+                    return true;
+                }
+            }
+        }
+
+        @NonNull
+        private static int[] newSlots(final int size) {
+            int[] slots = new int[size];
+            Arrays.fill(slots, EMPTY);
+            return slots;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.List;
+
+/**
+ * {@link SuggestionSource} answering queries from a local directory (i.e. a {@link SuggestibleIndex}), returned by the
+ * {@code asSource} methods of the directories.
+ */
+class LocalSuggestionSource implements SuggestionSource {
+
+    /**
+     * Interface to find the suggestions for a {@link QueryToken} in a local directory.
+     */
+    interface Query {
+
+        /**
+         * @param queryToken the {@link QueryToken} to find suggestions for
+         *
+         * @return the matching suggestions
+         */
+        @NonNull
+        List<? extends Suggestible> getSuggestions(final @NonNull QueryToken queryToken);
+    }
+
+    private final String mBucket;
+    private final Query mQuery;
+
+    LocalSuggestionSource(final @NonNull String bucket, final @NonNull Query query) {
+        mBucket = bucket;
+        mQuery = query;
+    }
+
+    @NonNull
+    @Override
+    public String getBucket() {
+        return mBucket;
+    }
+
+    @NonNull
+    @Override
+    public List<? extends Suggestible> getSuggestions(final @NonNull QueryToken queryToken) {
+        return mQuery.getSuggestions(queryToken);
+    }
+}
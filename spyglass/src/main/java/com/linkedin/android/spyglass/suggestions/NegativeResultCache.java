@@ -0,0 +1,170 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records the {@link QueryToken}s that a bucket returned no results for, so that queries for longer tokens that extend
+ * them (i.e. "@xqzt" after "@xqz") can be skipped, as they cannot return any results either.
+ * <p>
+ * Entries expire after a configurable time, and can be invalidated when the user deletes characters from the token.
+ */
+public class NegativeResultCache {
+
+    // Default time to remember that a bucket returned no results for a token
+    public static final long DEFAULT_TTL_MILLIS = 30000;
+
+    // Maximum number of tokens to remember for each bucket (oldest are evicted first)
+    private static final int MAX_TOKENS_PER_BUCKET = 16;
+
+    // Map from a bucket to the token strings it returned no results for and the time each entry expires, oldest first
+    private final Map<String, LinkedHashMap<String, Long>> mEmptyTokens = new HashMap<>();
+
+    private long mTtlMillis = DEFAULT_TTL_MILLIS;
+
+    /**
+     * Records that the given bucket returned no results for the given {@link QueryToken}. Tokens without any keywords
+     * (i.e. only an explicit character) are ignored, as receivers commonly return nothing for them on purpose.
+     *
+     * @param bucket     the bucket that returned no results
+     * @param queryToken the {@link QueryToken} the query was made for
+     */
+    public synchronized void put(final @NonNull String bucket, final @NonNull QueryToken queryToken) {
+        if (queryToken.getKeywords().length() == 0) {
+            return;
+        }
+        LinkedHashMap<String, Long> tokens = mEmptyTokens.get(bucket);
+        if (tokens == null) {
+            tokens = new LinkedHashMap<>();
+            mEmptyTokens.put(bucket, tokens);
+        }
+        String tokenString = queryToken.getTokenString();
+        tokens.remove(tokenString);
+        tokens.put(tokenString, SystemClock.uptimeMillis() + mTtlMillis);
+        Iterator<String> eldest = tokens.keySet().iterator();
+        while (tokens.size() > MAX_TOKENS_PER_BUCKET && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Forgets that the given bucket returned no results for the given {@link QueryToken}, i.e. because it has now
+     * returned some.
+     *
+     * @param bucket     the bucket
+     * @param queryToken the {@link QueryToken}
+     */
+    public synchronized void remove(final @NonNull String bucket, final @NonNull QueryToken queryToken) {
+        LinkedHashMap<String, Long> tokens = mEmptyTokens.get(bucket);
+        if (tokens != null) {
+            tokens.remove(queryToken.getTokenString());
+        }
+    }
+
+    /**
+     * Determines whether the given bucket cannot have any results for the given {@link QueryToken}, because it returned
+     * no results for a shorter token that the given token extends.
+     *
+     * @param bucket     the bucket to check
+     * @param queryToken the {@link QueryToken} to check
+     *
+     * @return true if a query for the token in the bucket can be skipped
+     */
+    public synchronized boolean isKnownEmpty(final @NonNull String bucket, final @NonNull QueryToken queryToken) {
+        LinkedHashMap<String, Long> tokens = mEmptyTokens.get(bucket);
+        if (tokens == null) {
+            return false;
+        }
+        final long now = SystemClock.uptimeMillis();
+        String tokenString = queryToken.getTokenString();
+        Iterator<Map.Entry<String, Long>> entries = tokens.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<String, Long> entry = entries.next();
+            if (entry.getValue() <= now) {
+                entries.remove();
+            } else if (tokenString.length() > entry.getKey().length() && tokenString.startsWith(entry.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Determines whether all of the given buckets cannot have any results for the given {@link QueryToken}.
+     *
+     * @param buckets    the buckets to check
+     * @param queryToken the {@link QueryToken} to check
+     *
+     * @return true if there is at least one bucket, and a query for the token can be skipped in all of them
+     */
+    public synchronized boolean isKnownEmpty(final @NonNull Collection<String> buckets,
+                                             final @NonNull QueryToken queryToken) {
+        if (buckets.isEmpty()) {
+            return false;
+        }
+        for (String bucket : buckets) {
+            if (!isKnownEmpty(bucket, queryToken)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Forgets every entry for the given {@link QueryToken} and for the tokens that extend it, in all buckets. Should be
+     * called when characters are deleted from the token, so that deleting and re-typing characters queries again.
+     *
+     * @param queryToken the {@link QueryToken} after the deletion
+     */
+    public synchronized void invalidateExtensionsOf(final @NonNull QueryToken queryToken) {
+        String tokenString = queryToken.getTokenString();
+        for (LinkedHashMap<String, Long> tokens : mEmptyTokens.values()) {
+            Iterator<String> entries = tokens.keySet().iterator();
+            while (entries.hasNext()) {
+                if (entries.next().startsWith(tokenString)) {
+                    entries.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Forgets all entries.
+     */
+    public synchronized void clear() {
+        mEmptyTokens.clear();
+    }
+
+    /**
+     * Sets how long to remember that a bucket returned no results for a token.
+     *
+     * @param ttlMillis the time to keep each entry, in milliseconds
+     */
+    public synchronized void setTtlMillis(final long ttlMillis) {
+        mTtlMillis = ttlMillis;
+    }
+}
@@ -0,0 +1,286 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable index answering prefix queries over a local directory of {@link Suggestible}s (i.e. the members of an
+ * organization), without scanning the whole directory on every keystroke.
+ * <p>
+ * Every name of a suggestible (by default its primary text) is normalized (see
+ * {@link SuggestionDirectoryWriter#normalize(String)}) and indexed from the start of each of its words, so "John Smith"
+ * is found by "jo", "sm" and "john sm". The keys are kept in a sorted array, so a query finds the first matching key
+ * using a binary search and then reads the matching keys in order, in O(log n + k) for k matching keys. The suggestions
+ * are returned in the order of their matching keys.
+ * <p>
+ * The index can be queried from any thread, and used as a local bucket using {@link #asSource(String)}.
+ *
+ * @param <T> the type of the indexed suggestibles
+ */
+public class SuggestibleIndex<T extends Suggestible> {
+
+    /**
+     * Interface to provide the names to index a suggestible by (i.e. a display name and a nickname).
+     *
+     * @param <T> the type of the indexed suggestibles
+     */
+    public interface NameExtractor<T> {
+
+        /**
+         * @param suggestible the suggestible to index
+         *
+         * @return the names to find the suggestible by
+         */
+        @NonNull
+        Collection<String> getNames(@NonNull T suggestible);
+    }
+
+    private final List<T> mItems;
+
+    // Range of mItems that is indexed (only part of it for the shards of an AsyncSuggestibleIndex)
+    private final int mFrom;
+    private final int mTo;
+
+    // Sorted normalized keys, and the index in mItems of the suggestible that each key belongs to
+    private final String[] mKeys;
+    private final int[] mItemIndexes;
+    private final KeyTable mKeyTable = new Keys();
+
+    /**
+     * Builds an index of the given suggestibles, by their primary text.
+     *
+     * @param suggestibles the suggestibles to index
+     */
+    public SuggestibleIndex(final @NonNull Collection<? extends T> suggestibles) {
+        this(suggestibles, suggestible -> Collections.singletonList(suggestible.getSuggestiblePrimaryText()));
+    }
+
+    /**
+     * Builds an index of the given suggestibles, by the names provided by the given {@link NameExtractor}.
+     *
+     * @param suggestibles  the suggestibles to index
+     * @param nameExtractor the {@link NameExtractor} providing the names of each suggestible
+     */
+    public SuggestibleIndex(final @NonNull Collection<? extends T> suggestibles,
+                            final @NonNull NameExtractor<? super T> nameExtractor) {
+        this(Collections.unmodifiableList(new ArrayList<T>(suggestibles)), nameExtractor, 0, suggestibles.size());
+    }
+
+    /**
+     * Builds an index of the given range of the given suggestibles.
+     *
+     * @param items         the suggestibles (not copied, so must not change)
+     * @param nameExtractor the {@link NameExtractor} providing the names of each suggestible
+     * @param from          the index of the first suggestible to index
+     * @param to            the index after the last suggestible to index
+     */
+    SuggestibleIndex(final @NonNull List<T> items,
+                     final @NonNull NameExtractor<? super T> nameExtractor,
+                     final int from,
+                     final int to) {
+        mItems = items;
+        mFrom = from;
+        mTo = to;
+
+        List<Key> keys = new ArrayList<>((to - from) * 2);
+        for (int i = from; i < to; i++) {
+            for (String name : nameExtractor.getNames(items.get(i))) {
+                addKeys(SuggestionDirectoryWriter.normalize(name), i, keys);
+            }
+        }
+        Key[] sortedKeys = keys.toArray(new Key[0]);
+        Arrays.sort(sortedKeys);
+
+        mKeys = new String[sortedKeys.length];
+        mItemIndexes = new int[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            mKeys[i] = sortedKeys[i].mText;
+            mItemIndexes[i] = sortedKeys[i].mItemIndex;
+        }
+    }
+
+    private SuggestibleIndex(final @NonNull List<T> items,
+                             final int from,
+                             final int to,
+                             final @NonNull String[] keys,
+                             final @NonNull int[] itemIndexes) {
+        mItems = items;
+        mFrom = from;
+        mTo = to;
+        mKeys = keys;
+        mItemIndexes = itemIndexes;
+    }
+
+    /**
+     * Merges the indexes of two adjacent ranges of the same suggestibles into the index of both ranges.
+     *
+     * @param first  the index of the first range
+     * @param second the index of the range that starts where the first one ends
+     *
+     * @return the merged index
+     */
+    @NonNull
+    static <T extends Suggestible> SuggestibleIndex<T> merge(final @NonNull SuggestibleIndex<T> first,
+                                                             final @NonNull SuggestibleIndex<T> second) {
+        final int length = first.mKeys.length + second.mKeys.length;
+        String[] keys = new String[length];
+        int[] itemIndexes = new int[length];
+        int i = 0;
+        int j = 0;
+        for (int k = 0; k < length; k++) {
+            // Note: The items of the first range come before those of the second, so equal keys stay in item order
+            if (j >= second.mKeys.length
+                    || (i < first.mKeys.length && first.mKeys[i].compareTo(second.mKeys[j]) <= 0)) {
+                keys[k] = first.mKeys[i];
+                itemIndexes[k] = first.mItemIndexes[i++];
+            } else {
+                keys[k] = second.mKeys[j];
+                itemIndexes[k] = second.mItemIndexes[j++];
+            }
+        }
+        return new SuggestibleIndex<>(first.mItems, first.mFrom, second.mTo, keys, itemIndexes);
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the number of indexed suggestibles
+     */
+    public int size() {
+        return mTo - mFrom;
+    }
+
+    /**
+     * Returns all suggestibles matching the keywords of the given {@link QueryToken}.
+     *
+     * @param queryToken the {@link QueryToken} to find suggestibles for
+     *
+     * @return the matching suggestibles
+     */
+    @NonNull
+    public List<T> getSuggestions(final @NonNull QueryToken queryToken) {
+        return getSuggestions(queryToken.getKeywords(), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the suggestibles that have a name matching the given keywords: the first keyword must be a prefix of a
+     * word of the name, and the following keywords prefixes of the following words. Matching ignores case.
+     *
+     * @param keywords   the keywords to match
+     * @param maxResults the maximum number of suggestibles to return
+     *
+     * @return the matching suggestibles, each at most once
+     */
+    @NonNull
+    public List<T> getSuggestions(final @NonNull String keywords, final int maxResults) {
+        String[] words = KeyTable.splitKeywords(keywords);
+        if (words.length == 0) {
+            return new ArrayList<>(mItems.subList(mFrom, mFrom + Math.min(Math.max(maxResults, 0), size())));
+        }
+
+        int[] itemIndexes = mKeyTable.findRecords(words, maxResults);
+        List<T> suggestions = new ArrayList<>(itemIndexes.length);
+        for (int itemIndex : itemIndexes) {
+            suggestions.add(mItems.get(itemIndex));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Returns a {@link SuggestionSource} answering queries from this index, to use it as a local bucket.
+     *
+     * @param bucket the bucket to place the suggestions into
+     *
+     * @return the {@link SuggestionSource}
+     */
+    @NonNull
+    public SuggestionSource asSource(final @NonNull String bucket) {
+        return new LocalSuggestionSource(bucket, this::getSuggestions);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Adds a key for every word of the given normalized name, from the start of the word to the end of the name.
+     */
+    private static void addKeys(final @NonNull String name, final int itemIndex, final @NonNull List<Key> keys) {
+        if (name.isEmpty()) {
+            return;
+        }
+        keys.add(new Key(name, itemIndex));
+        for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+            keys.add(new Key(name.substring(i + 1), itemIndex));
+        }
+    }
+
+    /**
+     * Gives the search access to the sorted keys.
+     */
+    private class Keys extends KeyTable {
+
+        @Override
+        int getKeyCount() {
+            return mKeys.length;
+        }
+
+        @Override
+        int getKeyLength(final int key) {
+            return mKeys[key].length();
+        }
+
+        @Override
+        int getKeyUnit(final int key, final int offset) {
+            return mKeys[key].charAt(offset);
+        }
+
+        @Override
+        int getKeyRecord(final int key) {
+            return mItemIndexes[key];
+        }
+    }
+
+    private static class Key implements Comparable<Key> {
+
+        private final String mText;
+        private final int mItemIndex;
+
+        Key(final @NonNull String text, final int itemIndex) {
+            mText = text;
+            mItemIndex = itemIndex;
+        }
+
+        @Override
+        public int compareTo(final @NonNull Key other) {
+            int result = mText.compareTo(other.mText);
+            return (result != 0) ? result : Integer.compare(mItemIndex, other.mItemIndex);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.content.res.AssetFileDescriptor;
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Read-only directory of records (i.e. people) in the compact binary format written by
+ * {@link SuggestionDirectoryWriter}, usually compiled from JSON at build time.
+ * <p>
+ * The file is memory-mapped and read in place, so opening a directory does not parse it or allocate per record, and
+ * only the pages that are touched by queries are loaded. Records are found by the prefix of any word of their primary
+ * text using a binary search over the sorted key table, with the same matching as
+ * {@link SuggestibleIndex#getSuggestions(String, int)}, and their fields are only read (as strings) for the records
+ * that are returned. A directory can be queried from any thread.
+ */
+public class SuggestionDirectory {
+
+    // Number of ints in every entry of the key table
+    private static final int KEY_INTS = 3;
+
+    private final ByteBuffer mBuffer;
+    private final CharBuffer mPool;
+    private final int mFieldCount;
+    private final int mRecordCount;
+    private final int mKeyCount;
+
+    // Offsets of the tables, in bytes
+    private final int mFieldNamesOffset;
+    private final int mRecordsOffset;
+    private final int mKeysOffset;
+
+    private final KeyTable mKeyTable = new Keys();
+
+    /**
+     * Reads a directory from the given buffer (i.e. a mapped file), without copying it.
+     *
+     * @param buffer the buffer containing the directory, from its current position
+     *
+     * @throws IOException if the buffer does not contain a directory
+     */
+    public SuggestionDirectory(final @NonNull ByteBuffer buffer) throws IOException {
+        mBuffer = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+        if (mBuffer.capacity() < SuggestionDirectoryWriter.HEADER_SIZE
+                || mBuffer.getInt(0) != SuggestionDirectoryWriter.MAGIC) {
+            throw new IOException("Not a suggestion directory");
+        }
+        int version = mBuffer.getInt(4);
+        if (version != SuggestionDirectoryWriter.VERSION) {
+            throw new IOException("Unsupported suggestion directory version " + version);
+        }
+        mFieldCount = mBuffer.getInt(8);
+        mRecordCount = mBuffer.getInt(12);
+        mKeyCount = mBuffer.getInt(16);
+        int poolLength = mBuffer.getInt(20);
+
+        mFieldNamesOffset = SuggestionDirectoryWriter.HEADER_SIZE;
+        mRecordsOffset = mFieldNamesOffset + mFieldCount * 2 * 4;
+        mKeysOffset = mRecordsOffset + mRecordCount * (mFieldCount + 1) * 2 * 4;
+        int poolOffset = mKeysOffset + mKeyCount * KEY_INTS * 4;
+        if (poolOffset + (long) poolLength * 2 > mBuffer.capacity()) {
+            throw new IOException("Truncated suggestion directory");
+        }
+
+        ByteBuffer pool = mBuffer.duplicate();
+        pool.position(poolOffset);
+        pool.limit(poolOffset + poolLength * 2);
+        mPool = pool.slice().order(ByteOrder.BIG_ENDIAN).asCharBuffer();
+    }
+
+    /**
+     * Memory-maps the directory in the given file.
+     *
+     * @param file the file containing the directory
+     *
+     * @return the directory
+     *
+     * @throws IOException if the file could not be mapped, or does not contain a directory
+     */
+    @NonNull
+    public static SuggestionDirectory open(final @NonNull File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+            FileChannel channel = randomAccessFile.getChannel();
+            // Note: The mapping stays valid after the file is closed
+            return new SuggestionDirectory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Memory-maps the directory in the given asset. The asset must not be compressed in the APK (i.e. using the
+     * {@code noCompress} option of aapt).
+     *
+     * @param assetFileDescriptor the descriptor of the asset, which is closed by this method
+     *
+     * @return the directory
+     *
+     * @throws IOException if the asset could not be mapped, or does not contain a directory
+     */
+    @NonNull
+    public static SuggestionDirectory open(final @NonNull AssetFileDescriptor assetFileDescriptor)
+            throws IOException {
+        try (FileInputStream in = assetFileDescriptor.createInputStream()) {
+            return new SuggestionDirectory(in.getChannel().map(FileChannel.MapMode.READ_ONLY,
+                    assetFileDescriptor.getStartOffset(), assetFileDescriptor.getLength()));
+        }
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the number of records in the directory
+     */
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    /**
+     * @return the number of fields of every record
+     */
+    public int getFieldCount() {
+        return mFieldCount;
+    }
+
+    /**
+     * @param name the name of a field
+     *
+     * @return the index of the field with the given name, or -1 if there is none
+     */
+    public int getFieldIndex(final @NonNull String name) {
+        for (int i = 0; i < mFieldCount; i++) {
+            int entry = mFieldNamesOffset + i * 2 * 4;
+            if (regionEquals(mBuffer.getInt(entry), mBuffer.getInt(entry + 4), name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param record the index of a record
+     *
+     * @return the primary text of the record
+     */
+    @NonNull
+    public String getPrimaryText(final int record) {
+        return readString(recordEntry(record));
+    }
+
+    /**
+     * @param record the index of a record
+     * @param field  the index of a field (see {@link #getFieldIndex(String)})
+     *
+     * @return the value of the field of the record
+     */
+    @NonNull
+    public String getField(final int record, final int field) {
+        if (field < 0 || field >= mFieldCount) {
+            throw new IndexOutOfBoundsException("Invalid field " + field);
+        }
+        return readString(recordEntry(record) + (field + 1) * 2 * 4);
+    }
+
+    /**
+     * Finds the records whose primary text matches the given keywords: the first keyword must be a prefix of a word of
+     * the text, and the following keywords prefixes of the following words. Matching ignores case.
+     *
+     * @param keywords   the keywords to match
+     * @param maxResults the maximum number of records to return
+     *
+     * @return the indexes of the matching records, each at most once, in the order of their matching keys
+     */
+    @NonNull
+    public int[] findRecords(final @NonNull String keywords, final int maxResults) {
+        String[] words = KeyTable.splitKeywords(keywords);
+        if (words.length == 0) {
+            int[] records = new int[Math.min(Math.max(maxResults, 0), mRecordCount)];
+            for (int i = 0; i < records.length; i++) {
+                records[i] = i;
+            }
+            return records;
+        }
+        return mKeyTable.findRecords(words, maxResults);
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private int recordEntry(final int record) {
+        if (record < 0 || record >= mRecordCount) {
+            throw new IndexOutOfBoundsException("Invalid record " + record);
+        }
+        return mRecordsOffset + record * (mFieldCount + 1) * 2 * 4;
+    }
+
+    @NonNull
+    private String readString(final int entry) {
+        int start = mBuffer.getInt(entry);
+        int length = mBuffer.getInt(entry + 4);
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = mPool.get(start + i);
+        }
+        return new String(chars);
+    }
+
+    private boolean regionStartsWith(final int start, final int length, final @NonNull String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (mPool.get(start + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean regionEquals(final int start, final int length, final @NonNull String text) {
+        return length == text.length() && regionStartsWith(start, length, text);
+    }
+
+    /**
+     * Gives the search access to the key table, whose keys are regions of the string pool.
+     */
+    private class Keys extends KeyTable {
+
+        @Override
+        int getKeyCount() {
+            return mKeyCount;
+        }
+
+        @Override
+        int getKeyLength(final int key) {
+            return mBuffer.getInt(mKeysOffset + key * KEY_INTS * 4 + 4);
+        }
+
+        @Override
+        int getKeyUnit(final int key, final int offset) {
+            return mPool.get(mBuffer.getInt(mKeysOffset + key * KEY_INTS * 4) + offset);
+        }
+
+        @Override
+        int getKeyRecord(final int key) {
+            return mBuffer.getInt(mKeysOffset + key * KEY_INTS * 4 + 8);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Writes a directory of records (i.e. people) in the binary format read by {@link SuggestionDirectory}.
+ * <p>
+ * This class only depends on the JDK, so that it can also run at build time to compile a directory ahead of time (see
+ * the {@code CompileSuggestionDirectoryTask} of the build). All values are big-endian, and all strings are stored once
+ * in a shared pool of UTF-16 characters:
+ * <pre>
+ * header:       int magic, int version, int fieldCount, int recordCount, int keyCount, int poolLength
+ * field names:  fieldCount * (int start, int length)
+ * records:      recordCount * (int start, int length) of the primary text, then fieldCount * (int start, int length)
+ * keys:         keyCount * (int start, int length, int record), sorted by the text of the key
+ * string pool:  poolLength * char
+ * </pre>
+ * Every key is a suffix of the normalized primary text of a record (see {@link #normalize(String)}), starting at one of
+ * its words, so that records can be found by the prefix of any of their words.
+ */
+public class SuggestionDirectoryWriter {
+
+    // Identifies the format ("SPYD")
+    public static final int MAGIC = 0x53505944;
+
+    public static final int VERSION = 1;
+
+    // Size of the header, in bytes
+    static final int HEADER_SIZE = 6 * 4;
+
+    private final List<String> mFieldNames;
+    private final List<String> mPrimaryTexts = new ArrayList<>();
+    private final List<List<String>> mRecordFields = new ArrayList<>();
+
+    /**
+     * @param fieldNames the names of the fields of every record (i.e. "first", "last" and "picture")
+     */
+    public SuggestionDirectoryWriter(final @NonNull List<String> fieldNames) {
+        mFieldNames = new ArrayList<>(fieldNames);
+    }
+
+    /**
+     * Adds a record to the directory.
+     *
+     * @param primaryText the text to display and find the record by
+     * @param fields      the value of every field of the record, in the order of the field names
+     */
+    public void addRecord(final @NonNull String primaryText, final @NonNull List<String> fields) {
+        if (fields.size() != mFieldNames.size()) {
+            throw new IllegalArgumentException("Expected " + mFieldNames.size() + " fields, got " + fields.size());
+        }
+        mPrimaryTexts.add(primaryText);
+        mRecordFields.add(new ArrayList<>(fields));
+    }
+
+    /**
+     * @return the number of records added so far
+     */
+    public int getRecordCount() {
+        return mPrimaryTexts.size();
+    }
+
+    /**
+     * Writes the directory to the given stream.
+     *
+     * @param out the stream to write to (not closed)
+     *
+     * @throws IOException if the directory could not be written
+     */
+    public void write(final @NonNull OutputStream out) throws IOException {
+        final StringBuilder pool = new StringBuilder();
+        final Map<String, Integer> pooledStrings = new HashMap<>();
+
+        int[] fieldNameRefs = new int[mFieldNames.size()];
+        for (int i = 0; i < fieldNameRefs.length; i++) {
+            fieldNameRefs[i] = addToPool(mFieldNames.get(i), pool, pooledStrings);
+        }
+
+        final int recordCount = mPrimaryTexts.size();
+        final int fieldCount = mFieldNames.size();
+        int[] recordRefs = new int[recordCount * (fieldCount + 1)];
+        List<Key> keys = new ArrayList<>(recordCount * 2);
+        for (int record = 0; record < recordCount; record++) {
+            int base = record * (fieldCount + 1);
+            recordRefs[base] = addToPool(mPrimaryTexts.get(record), pool, pooledStrings);
+            List<String> fields = mRecordFields.get(record);
+            for (int field = 0; field < fieldCount; field++) {
+                recordRefs[base + field + 1] = addToPool(fields.get(field), pool, pooledStrings);
+            }
+
+            String name = normalize(mPrimaryTexts.get(record));
+            if (name.isEmpty()) {
+                continue;
+            }
+            int nameStart = addToPool(name, pool, pooledStrings);
+            keys.add(new Key(nameStart, name.length(), record));
+            for (int i = name.indexOf(' '); i >= 0; i = name.indexOf(' ', i + 1)) {
+                keys.add(new Key(nameStart + i + 1, name.length() - i - 1, record));
+            }
+        }
+        final String poolText = pool.toString();
+        Collections.sort(keys, (first, second) -> {
+            int result = compareRegions(poolText, first, second);
+            return (result != 0) ? result : Integer.compare(first.mRecord, second.mRecord);
+        });
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(fieldCount);
+        data.writeInt(recordCount);
+        data.writeInt(keys.size());
+        data.writeInt(poolText.length());
+        for (int i = 0; i < fieldCount; i++) {
+            writeRef(data, fieldNameRefs[i], mFieldNames.get(i));
+        }
+        for (int record = 0; record < recordCount; record++) {
+            int base = record * (fieldCount + 1);
+            writeRef(data, recordRefs[base], mPrimaryTexts.get(record));
+            List<String> fields = mRecordFields.get(record);
+            for (int field = 0; field < fieldCount; field++) {
+                writeRef(data, recordRefs[base + field + 1], fields.get(field));
+            }
+        }
+        for (Key key : keys) {
+            data.writeInt(key.mStart);
+            data.writeInt(key.mLength);
+            data.writeInt(key.mRecord);
+        }
+        data.writeChars(poolText);
+        data.flush();
+    }
+
+    /**
+     * Normalizes a name for indexing: lower case (independently of the locale, so that directories compiled on
+     * different machines are identical), without leading or trailing whitespace, and with every sequence of whitespace
+     * replaced by a single space.
+     *
+     * @param text the text to normalize
+     *
+     * @return the normalized text
+     */
+    @NonNull
+    public static String normalize(final @NonNull String text) {
+        String lowerCase = text.toLowerCase(Locale.ROOT);
+        StringBuilder normalized = new StringBuilder(lowerCase.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < lowerCase.length(); i++) {
+            char c = lowerCase.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = normalized.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    normalized.append(' ');
+                    pendingSpace = false;
+                }
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * @return the start of the given text in the pool, adding it if it is not pooled yet
+     */
+    private static int addToPool(final @NonNull String text, final @NonNull StringBuilder pool,
+                                 final @NonNull Map<String, Integer> pooledStrings) {
+        Integer start = pooledStrings.get(text);
+        if (start == null) {
+            start = pool.length();
+            pool.append(text);
+            pooledStrings.put(text, start);
+        }
+        return start;
+    }
+
+    private static void writeRef(final @NonNull DataOutputStream data, final int start, final @NonNull String text)
+            throws IOException {
+        data.writeInt(start);
+        data.writeInt(text.length());
+    }
+
+    private static int compareRegions(final @NonNull String pool, final @NonNull Key first,
+                                      final @NonNull Key second) {
+        int length = Math.min(first.mLength, second.mLength);
+        for (int i = 0; i < length; i++) {
+            char a = pool.charAt(first.mStart + i);
+            char b = pool.charAt(second.mStart + i);
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return first.mLength - second.mLength;
+    }
+
+    private static class Key {
+
+        private final int mStart;
+        private final int mLength;
+        private final int mRecord;
+
+        Key(final int start, final int length, final int record) {
+            mStart = start;
+            mLength = length;
+            mRecord = record;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Row reserved by the {@link SuggestionsAdapter} for a bucket that has not reported its results yet (see
+ * {@link SuggestionsDisplayPolicy#PLACEHOLDER_ROWS}). Placeholders have no text and cannot be clicked; a
+ * {@link com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder} can check for this class to
+ * display them as loading rows.
+ */
+public class SuggestionPlaceholder implements Suggestible {
+
+    private final String mBucket;
+    private final int mIndex;
+
+    public SuggestionPlaceholder(final @NonNull String bucket, final int index) {
+        mBucket = bucket;
+        mIndex = index;
+    }
+
+    /**
+     * Creates the placeholders reserving the given number of rows for a bucket.
+     *
+     * @param bucket the bucket to reserve rows for
+     * @param rows   the number of rows to reserve
+     *
+     * @return the placeholders, in order
+     */
+    @NonNull
+    static List<Suggestible> reserveRows(final @NonNull String bucket, final int rows) {
+        List<Suggestible> placeholders = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            placeholders.add(new SuggestionPlaceholder(bucket, i));
+        }
+        return placeholders;
+    }
+
+    /**
+     * @return the bucket that the row is reserved for
+     */
+    @NonNull
+    public String getBucket() {
+        return mBucket;
+    }
+
+    /**
+     * @return the position of the row among the rows reserved for the bucket
+     */
+    public int getIndex() {
+        return mIndex;
+    }
+
+    // --------------------------------------------------
+    // Suggestible Implementation
+    // --------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getSuggestibleId() {
+        // Note: The id is stable across rebuilds, so a RecyclerView keeps the row until the results arrive
+        return 31 * mBucket.hashCode() + mIndex;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public String getSuggestiblePrimaryText() {
+        return "";
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SuggestionPlaceholder)) {
+            return false;
+        }
+        SuggestionPlaceholder other = (SuggestionPlaceholder) o;
+        return mIndex == other.mIndex && mBucket.equals(other.mBucket);
+    }
+
+    @Override
+    public int hashCode() {
+        return getSuggestibleId();
+    }
+
+    // --------------------------------------------------
+    // Parcelable Implementation
+    // --------------------------------------------------
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeString(mBucket);
+        dest.writeInt(mIndex);
+    }
+
+    public static final Parcelable.Creator<SuggestionPlaceholder> CREATOR =
+            new Parcelable.Creator<SuggestionPlaceholder>() {
+        @Override
+        public SuggestionPlaceholder createFromParcel(Parcel in) {
+            return new SuggestionPlaceholder(in.readString(), in.readInt());
+        }
+
+        @Override
+        public SuggestionPlaceholder[] newArray(int size) {
+            return new SuggestionPlaceholder[size];
+        }
+    };
+}
@@ -0,0 +1,135 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declares which buckets handle the {@link QueryToken}s started by each explicit character (i.e. people for '@' and
+ * topics for '#'), and which handle implicit tokens. Instantiate using the {@link SuggestionRoutingTable.Builder}
+ * class.
+ * <p>
+ * The {@link SuggestionsAdapter} only waits for, and displays, the buckets routed for a token, and the
+ * {@link com.linkedin.android.spyglass.suggestions.impl.SuggestionSourceOrchestrator} only queries their sources.
+ * Tokens of a mode that has no route (i.e. an explicit character that is not listed) are not restricted.
+ */
+public class SuggestionRoutingTable {
+
+    // Map from each explicit character (or 0 for implicit tokens) to the buckets that handle it
+    private final Map<Character, Set<String>> mRoutes;
+
+    private SuggestionRoutingTable(final @NonNull Map<Character, Set<String>> routes) {
+        mRoutes = routes;
+    }
+
+    /**
+     * Returns the buckets that handle the given {@link QueryToken}.
+     *
+     * @param queryToken the {@link QueryToken} to route
+     *
+     * @return the buckets routed for the token, or null if its mode has no route (i.e. all buckets handle it)
+     */
+    @Nullable
+    public Set<String> getBuckets(final @NonNull QueryToken queryToken) {
+        return mRoutes.get(queryToken.getExplicitChar());
+    }
+
+    /**
+     * Determines whether the given bucket handles the given {@link QueryToken}.
+     *
+     * @param queryToken the {@link QueryToken} to route
+     * @param bucket     the bucket to check
+     *
+     * @return true if the bucket is routed for the token, or the mode of the token has no route
+     */
+    public boolean isRouted(final @NonNull QueryToken queryToken, final @NonNull String bucket) {
+        Set<String> buckets = getBuckets(queryToken);
+        return buckets == null || buckets.contains(bucket);
+    }
+
+    /**
+     * Removes the buckets that do not handle the given {@link QueryToken} from a list of buckets.
+     *
+     * @param queryToken the {@link QueryToken} to route
+     * @param buckets    the buckets to filter
+     *
+     * @return the buckets of the list that are routed for the token, in the same order
+     */
+    @NonNull
+    public List<String> filterBuckets(final @NonNull QueryToken queryToken, final @NonNull List<String> buckets) {
+        Set<String> routedBuckets = getBuckets(queryToken);
+        if (routedBuckets == null) {
+            return buckets;
+        }
+        List<String> filtered = new ArrayList<>(buckets.size());
+        for (String bucket : buckets) {
+            if (routedBuckets.contains(bucket)) {
+                filtered.add(bucket);
+            }
+        }
+        return filtered;
+    }
+
+    public static class Builder {
+
+        // Buckets routed so far for every explicit character (the null character for implicit tokens)
+        private final Map<Character, Set<String>> routes = new HashMap<>();
+
+        /**
+         * Routes the tokens started by the given explicit character to the given buckets. Routing the same character
+         * again adds to its buckets.
+         */
+        @NonNull
+        public Builder route(char explicitChar, @NonNull String... buckets) {
+            Set<String> routedBuckets = routes.get(explicitChar);
+            if (routedBuckets == null) {
+                routedBuckets = new LinkedHashSet<>();
+                routes.put(explicitChar, routedBuckets);
+            }
+            routedBuckets.addAll(Arrays.asList(buckets));
+            return this;
+        }
+
+        /**
+         * Routes implicit tokens (i.e. without an explicit character) to the given buckets.
+         */
+        @NonNull
+        public Builder routeImplicit(@NonNull String... buckets) {
+            return route((char) 0, buckets);
+        }
+
+        @NonNull
+        public SuggestionRoutingTable build() {
+            Map<Character, Set<String>> routesCopy = new HashMap<>();
+            for (Map.Entry<Character, Set<String>> entry : routes.entrySet()) {
+                routesCopy.put(entry.getKey(), Collections.unmodifiableSet(new LinkedHashSet<>(entry.getValue())));
+            }
+            return new SuggestionRoutingTable(routesCopy);
+        }
+    }
+}
@@ -16,11 +16,15 @@ package com.linkedin.android.spyglass.suggestions;
 
 import android.content.Context;
 import android.content.res.Resources;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.BaseAdapter;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
@@ -29,30 +33,78 @@ import com.linkedin.android.spyglass.tokenization.QueryToken;
 import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Adapter class for displaying suggestions.
+ * <p>
+ * The results of every bucket, the query tokens being waited on and the displayed list of suggestions are all held in
+ * immutable snapshots, which are replaced atomically. Readers (i.e. {@link #getCount()} and {@link #getItem(int)}) never
+ * block and always see a complete list, and results can be added from any thread without contending with them. The
+ * current token is only read from the {@link TokenSource} on the UI thread, and the rebuilt list of suggestions is
+ * always applied there, so the edited text and the views are only accessed on the UI thread.
  */
 public class SuggestionsAdapter extends BaseAdapter {
 
-    private final Object mLock = new Object();
+    // Default time to wait for a bucket to report its results before no longer waiting for it
+    public static final long DEFAULT_BUCKET_TIMEOUT_MILLIS = 10000;
+
+    // Default time to keep the latest result for a bucket
+    public static final long DEFAULT_RESULT_TTL_MILLIS = 60000;
+
+    // Maximum number of query tokens to wait for and buckets to keep results for (oldest are evicted first)
+    static final int MAX_WAITING_QUERY_TOKENS = 16;
+    static final int MAX_RESULT_BUCKETS = 32;
+
+    // Default number of results to keep for refining the suggestions while the user keeps typing
+    public static final int DEFAULT_RESULT_CACHE_SIZE = 32;
+
     private final Context mContext;
     private final Resources mResources;
     private final LayoutInflater mInflater;
 
     private SuggestionsVisibilityManager mSuggestionsVisibilityManager;
     private SuggestionsListBuilder mSuggestionsListBuilder;
-    private final List<Suggestible> mSuggestions;
 
-    // Map from a given bucket (defined by a unique string) to the latest query result for that bucket
-    // Example buckets: "Person-Database", "Person-Network", "Companies-Database", "Companies-Network"
-    private final Map<String, SuggestionsResult> mResultMap = new HashMap<>();
-    private final Map<QueryToken, Set<String>> mWaitingForResults = new HashMap<>();
+    // Latest results and query tokens being waited on (see State), and the list of suggestions currently displayed
+    private final AtomicReference<State> mState = new AtomicReference<>(State.EMPTY);
+    private final AtomicReference<List<Suggestible>> mSuggestions =
+            new AtomicReference<>(Collections.<Suggestible>emptyList());
+
+    // Recent results, used to show provisional suggestions for a token that extends a previous one
+    private SuggestionsResultCache mResultCache = new SuggestionsResultCache(DEFAULT_RESULT_CACHE_SIZE);
+
+    // Executor to build the list of suggestions on (null to build it on the calling thread), and a counter incremented
+    // whenever the results or the token change, used to discard lists that were superseded while being built
+    @Nullable private volatile Executor mBuildExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicInteger mBuildGeneration = new AtomicInteger();
+
+    // Batch of changes being applied on the UI thread (see beginBatch()), and whether the list must be rebuilt after it
+    private int mBatchDepth = 0;
+    private boolean mBatchRebuildPending = false;
+    @Nullable private QueryToken mBatchCompletedQuery;
+
+    // Policy deciding when to display the suggestions of a query answered by several buckets
+    private volatile SuggestionsDisplayPolicy mDisplayPolicy = SuggestionsDisplayPolicy.IMMEDIATE;
+    private final Object mDisplayDeadlineToken = new Object();
+    private final Object mPlaceholderDeadlineToken = new Object();
+
+    // Table deciding which buckets handle each kind of query token (null if all buckets handle all tokens)
+    @Nullable private volatile SuggestionRoutingTable mRoutingTable;
+
+    private volatile long mBucketTimeoutMillis = DEFAULT_BUCKET_TIMEOUT_MILLIS;
+    private volatile long mResultTtlMillis = DEFAULT_RESULT_TTL_MILLIS;
 
     public SuggestionsAdapter(final @NonNull Context context,
                               final @NonNull SuggestionsVisibilityManager suggestionsVisibilityManager,
@@ -63,7 +115,6 @@ public class SuggestionsAdapter extends BaseAdapter {
         mInflater = (LayoutInflater) context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
         mSuggestionsVisibilityManager = suggestionsVisibilityManager;
         mSuggestionsListBuilder = suggestionsListBuilder;
-        mSuggestions = new ArrayList<>();
     }
 
     // --------------------------------------------------
@@ -73,23 +124,72 @@ public class SuggestionsAdapter extends BaseAdapter {
     /**
      * Method to notify the adapter that a new {@link QueryToken} has been received and that
      * suggestions will be added to the adapter once generated.
+     * <p>
+     * If the token extends a token that results were recently received for (i.e. "@john" after "@joh"), those results
+     * are filtered and displayed immediately, until the actual results for each bucket are added.
      *
      * @param queryToken the {@link QueryToken} that has been received
-     * @param buckets    a list of string dictating which buckets the future query results will go into
+     * @param buckets    a list of string dictating which buckets the future query results will go into (buckets that
+     *                   are not routed for the token by the {@link SuggestionRoutingTable} are not waited for)
      */
 
-    public void notifyQueryTokenReceived(@NonNull QueryToken queryToken,
-                                         @NonNull List<String> buckets) {
-        synchronized (mLock) {
-            Set<String> currentBuckets = mWaitingForResults.get(queryToken);
+    public void notifyQueryTokenReceived(final @NonNull QueryToken queryToken,
+                                         final @NonNull List<String> buckets) {
+        final SuggestionRoutingTable routingTable = mRoutingTable;
+        final List<String> routedBuckets = (routingTable != null)
+                ? routingTable.filterBuckets(queryToken, buckets)
+                : buckets;
+
+        // Show provisional results, refined from the cached results of a shorter token
+        final Map<String, SuggestionsResult> refinedResults = new HashMap<>();
+        for (String bucket : routedBuckets) {
+            SuggestionsResult refinedResult = mResultCache.getRefinedResult(bucket, queryToken);
+            if (refinedResult != null) {
+                refinedResults.put(bucket, refinedResult);
+            }
+        }
+
+        // Buckets are not waited on past the drop deadline of the display policy, as their results would be dropped
+        final long dropDeadlineMillis = mDisplayPolicy.DROP_DEADLINE_MILLIS;
+        final long bucketTimeoutMillis = (dropDeadlineMillis > 0)
+                ? Math.min(dropDeadlineMillis, mBucketTimeoutMillis)
+                : mBucketTimeoutMillis;
+        final long resultTtlMillis = mResultTtlMillis;
+        updateState(editor -> {
+            Map<String, Long> currentBuckets = editor.waitingForResults.remove(queryToken);
             if (currentBuckets == null) {
-                currentBuckets = new HashSet<>();
+                currentBuckets = new HashMap<>();
+            }
+            for (String bucket : routedBuckets) {
+                currentBuckets.put(bucket, editor.now + bucketTimeoutMillis);
             }
-            currentBuckets.addAll(buckets);
-            mWaitingForResults.put(queryToken, currentBuckets);
+            // Note: Re-inserting the token marks it as the most recent one
+            editor.waitingForResults.put(queryToken, currentBuckets);
+            editor.queryStartTimes.remove(queryToken);
+            editor.queryStartTimes.put(queryToken, editor.now);
+            editor.arrivedBuckets.remove(queryToken);
+            for (Map.Entry<String, SuggestionsResult> entry : refinedResults.entrySet()) {
+                editor.putResult(entry.getKey(), entry.getValue(), resultTtlMillis);
+            }
+        });
+
+        // Lists still being built for the previous token are no longer needed
+        mBuildGeneration.incrementAndGet();
+        if (!refinedResults.isEmpty() || mDisplayPolicy.PLACEHOLDER_ROWS > 0) {
+            rebuildSuggestions(queryToken.getTokenString(), null);
         }
     }
 
+    /**
+     * Method to notify the adapter that a {@link QueryToken} has been cancelled, so results for it are no longer
+     * expected.
+     *
+     * @param queryToken the {@link QueryToken} that has been cancelled
+     */
+    public void notifyQueryTokenCancelled(final @NonNull QueryToken queryToken) {
+        updateState(editor -> editor.waitingForResults.remove(queryToken));
+    }
+
     /**
      * Add mention suggestions to a given bucket in the adapter. The adapter tracks the latest result for every given
      * bucket, and passes this information to the SuggestionsManager to construct the list of suggestions in the
@@ -105,63 +205,504 @@ public class SuggestionsAdapter extends BaseAdapter {
                                final @NonNull String bucket,
                                final @NonNull TokenSource source) {
         // Add result to proper bucket and remove from waiting
-        QueryToken query = result.getQueryToken();
-        synchronized (mLock) {
-            mResultMap.put(bucket, result);
-            Set<String> waitingForBuckets = mWaitingForResults.get(query);
-            if (waitingForBuckets != null) {
-                waitingForBuckets.remove(bucket);
-                if (waitingForBuckets.size() == 0) {
-                    mWaitingForResults.remove(query);
-                }
-            }
+        final QueryToken query = result.getQueryToken();
+        final long resultTtlMillis = mResultTtlMillis;
+        final SuggestionsDisplayPolicy policy = mDisplayPolicy;
+        final boolean routed = isRouted(query, bucket);
+        if (routed) {
+            mResultCache.put(bucket, result);
         }
+        updateState(editor -> {
+            // Note: Results that missed the drop deadline, or of buckets that are not routed for the token, are not
+            // displayed
+            if (routed && !editor.recordArrival(query, bucket, policy)) {
+                editor.putResult(bucket, result, resultTtlMillis);
+            }
+            editor.removeWaiting(query, bucket);
+        });
 
         // Rebuild the list of suggestions in the appropriate order
-        String currentTokenString = source.getCurrentTokenString();
-        synchronized (mLock) {
-            mSuggestions.clear();
-            List<Suggestible> suggestions = mSuggestionsListBuilder.buildSuggestions(mResultMap, currentTokenString);
-
-            // If we have suggestions, add them to the adapter and display them
-            if (suggestions.size() > 0) {
-                mSuggestions.addAll(suggestions);
-                mSuggestionsVisibilityManager.displaySuggestions(true);
+        rebuildSuggestions(source, query);
+    }
+
+    /**
+     * Appends a chunk of mention suggestions to the result of a given bucket, for buckets that stream their results.
+     * The chunk is displayed immediately, but the adapter keeps waiting for the bucket until
+     * {@link #completeSuggestions(QueryToken, String, boolean, TokenSource)} is called. A chunk for a different
+     * {@link QueryToken} than the current result of the bucket replaces that result.
+     *
+     * @param chunk  a {@link SuggestionsResult} containing the suggestions to append
+     * @param bucket a string representing the group to place the suggestions into
+     * @param source the associated {@link TokenSource} to use for reference
+     */
+    public void appendSuggestions(final @NonNull SuggestionsResult chunk,
+                                  final @NonNull String bucket,
+                                  final @NonNull TokenSource source) {
+        final QueryToken query = chunk.getQueryToken();
+        if (!isRouted(query, bucket)) {
+            return;
+        }
+        final long resultTtlMillis = mResultTtlMillis;
+        final SuggestionsDisplayPolicy policy = mDisplayPolicy;
+        updateState(editor -> {
+            if (editor.isPastDropDeadline(query, bucket, policy)) {
+                return;
+            }
+            SuggestionsResult current = editor.results.get(bucket);
+            if (current != null && current.getQueryToken().equals(query) && !chunk.getSuggestions().isEmpty()) {
+                List<Suggestible> suggestions = new ArrayList<>(current.getSuggestions().size()
+                        + chunk.getSuggestions().size());
+                suggestions.addAll(current.getSuggestions());
+                suggestions.addAll(chunk.getSuggestions());
+                editor.putResult(bucket, new SuggestionsResult(query, suggestions), resultTtlMillis);
+            } else if (current == null || !current.getQueryToken().equals(query)) {
+                editor.putResult(bucket, chunk, resultTtlMillis);
+            }
+        });
+
+        rebuildSuggestions(source, null);
+    }
+
+    /**
+     * Marks the result of a given bucket as complete, after its suggestions were streamed using
+     * {@link #appendSuggestions(SuggestionsResult, String, TokenSource)}. The adapter stops waiting for the bucket.
+     *
+     * @param queryToken  the {@link QueryToken} the suggestions were generated for
+     * @param bucket      the bucket whose result is complete
+     * @param hasMore     true if the bucket can return another page of suggestions (see
+     *                    {@link #requestMoreSuggestions(QueryToken)})
+     * @param source      the associated {@link TokenSource} to use for reference
+     *
+     * @return the number of suggestions in the result of the bucket
+     */
+    public int completeSuggestions(final @NonNull QueryToken queryToken,
+                                   final @NonNull String bucket,
+                                   final boolean hasMore,
+                                   final @NonNull TokenSource source) {
+        final long resultTtlMillis = mResultTtlMillis;
+        final SuggestionsDisplayPolicy policy = mDisplayPolicy;
+        final boolean routed = isRouted(queryToken, bucket);
+        State state = updateState(editor -> {
+            if (!routed || editor.recordArrival(queryToken, bucket, policy)) {
+                editor.removeWaiting(queryToken, bucket);
+                editor.pageRequestTimes.remove(bucket);
+                return;
+            }
+            SuggestionsResult current = editor.results.get(bucket);
+            if (current == null || !current.getQueryToken().equals(queryToken)) {
+                editor.putResult(bucket, new SuggestionsResult(queryToken, Collections.<Suggestible>emptyList()),
+                        resultTtlMillis);
+            }
+            editor.removeWaiting(queryToken, bucket);
+            editor.pageRequestTimes.remove(bucket);
+            if (hasMore) {
+                editor.bucketsWithMoreResults.add(bucket);
             } else {
-                hideSuggestionsIfNecessary(result.getQueryToken(), source);
+                editor.bucketsWithMoreResults.remove(bucket);
             }
+        });
+
+        SuggestionsResult result = routed ? state.results.get(bucket) : null;
+        if (result != null) {
+            mResultCache.put(bucket, result);
         }
 
-        notifyDataSetChanged();
+        rebuildSuggestions(source, queryToken);
+        return (result != null) ? result.getSuggestions().size() : 0;
+    }
+
+    /**
+     * Determines which buckets can return another page of suggestions for the given {@link QueryToken}, and starts
+     * waiting for them. Each page is only requested once: a bucket is not returned again until it completes its next
+     * page with more results available. The deadlines of the {@link SuggestionsDisplayPolicy} apply to each page from
+     * the time it is requested.
+     *
+     * @param queryToken the {@link QueryToken} to get more suggestions for
+     *
+     * @return a map from each bucket to request the next page from to the number of suggestions it already returned
+     */
+    @NonNull
+    public Map<String, Integer> requestMoreSuggestions(final @NonNull QueryToken queryToken) {
+        final Map<String, Integer> requests = new HashMap<>();
+        final long bucketTimeoutMillis = mBucketTimeoutMillis;
+        updateState(editor -> {
+            requests.clear();
+            Iterator<String> buckets = editor.bucketsWithMoreResults.iterator();
+            while (buckets.hasNext()) {
+                String bucket = buckets.next();
+                SuggestionsResult result = editor.results.get(bucket);
+                if (result != null && result.getQueryToken().equals(queryToken)) {
+                    requests.put(bucket, result.getSuggestions().size());
+                    editor.addWaiting(queryToken, bucket, bucketTimeoutMillis);
+                    // Note: The deadlines of the display policy apply to the page from the time it is requested
+                    editor.pageRequestTimes.put(bucket, editor.now);
+                    buckets.remove();
+                }
+            }
+        });
+        return requests;
+    }
+
+    /**
+     * Starts a batch of changes, i.e. several results added at once. Until {@link #endBatch(TokenSource)} is called, the
+     * list of suggestions is not rebuilt. Must be called on the UI thread, and batches may be nested.
+     */
+    public void beginBatch() {
+        mBatchDepth++;
+    }
+
+    /**
+     * Ends a batch of changes started with {@link #beginBatch()}, rebuilding the list of suggestions once if anything
+     * changed during the batch. Must be called on the UI thread.
+     *
+     * @param source the associated {@link TokenSource} to use for reference
+     */
+    public void endBatch(final @NonNull TokenSource source) {
+        if (mBatchDepth == 0 || --mBatchDepth > 0 || !mBatchRebuildPending) {
+            return;
+        }
+        QueryToken completedQuery = mBatchCompletedQuery;
+        mBatchRebuildPending = false;
+        mBatchCompletedQuery = null;
+        rebuildSuggestions(source, completedQuery);
     }
 
     /**
      * Clear all data from adapter.
      */
     public void clear() {
-        mResultMap.clear();
-        notifyDataSetChanged();
+        updateState(editor -> {
+            editor.results.clear();
+            editor.resultExpiryTimes.clear();
+        });
+        mResultCache.clear();
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            notifyDataSetChanged();
+        } else {
+            mMainHandler.post(this::notifyDataSetChanged);
+        }
+    }
+
+    /**
+     * @return the suggestions currently displayed by the adapter (an immutable snapshot)
+     */
+    @NonNull
+    public List<Suggestible> getSuggestions() {
+        return mSuggestions.get();
+    }
+
+    /**
+     * @return the number of query tokens that the adapter is still waiting on results for
+     */
+    public int getWaitingQueryTokenCount() {
+        final long now = SystemClock.uptimeMillis();
+        int count = 0;
+        for (Map<String, Long> buckets : mState.get().waitingForResults.values()) {
+            if (countPending(buckets, now) > 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of buckets, across all query tokens, that the adapter is still waiting on results for
+     */
+    public int getWaitingBucketCount() {
+        final long now = SystemClock.uptimeMillis();
+        int count = 0;
+        for (Map<String, Long> buckets : mState.get().waitingForResults.values()) {
+            count += countPending(buckets, now);
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of buckets that the adapter is currently keeping results for
+     */
+    public int getResultCount() {
+        return countPending(mState.get().resultExpiryTimes, SystemClock.uptimeMillis());
+    }
+
+    /**
+     * Returns how long every bucket took to report its results, measured from the time its {@link QueryToken} was
+     * received. Useful to tune the deadlines of the {@link SuggestionsDisplayPolicy}.
+     *
+     * @return a map from each bucket to its {@link BucketLatencyStats}
+     */
+    @NonNull
+    public Map<String, BucketLatencyStats> getBucketLatencyStats() {
+        return Collections.unmodifiableMap(mState.get().latencies);
     }
 
     // --------------------------------------------------
     // Private Helper Methods
     // --------------------------------------------------
 
+    /**
+     * Applies a change to a copy of the current {@link State}, prunes it, and publishes it. If another thread published
+     * a new state in the meantime, the change is applied again to that state.
+     *
+     * @param update the change to apply
+     *
+     * @return the published state
+     */
+    @NonNull
+    private State updateState(final @NonNull StateUpdate update) {
+        while (true) {
+            State current = mState.get();
+            State.Editor editor = current.edit(SystemClock.uptimeMillis());
+            update.apply(editor);
+            State next = editor.build();
+            if (mState.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the list of suggestions for the current token of the given {@link TokenSource}. The source (i.e. a
+     * {@link com.linkedin.android.spyglass.ui.MentionsEditText}) reads the edited text, so it is only tokenized on the
+     * UI thread: if called from another thread, the rebuild is posted to the UI thread.
+     *
+     * @param source         the {@link TokenSource} to get the current token from
+     * @param completedQuery the {@link QueryToken} whose results were just added, used to determine whether to hide
+     *                       the suggestions if there are none (null to never hide them)
+     */
+    private void rebuildSuggestions(final @NonNull TokenSource source, final @Nullable QueryToken completedQuery) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            mMainHandler.post(() -> rebuildSuggestions(source, completedQuery));
+            return;
+        }
+
+        // Note: The source is only tokenized once, and the result is also used to determine whether to hide the list
+        rebuildSuggestions(source.getCurrentTokenMatch().getTokenString(), completedQuery);
+    }
+
+    /**
+     * Rebuilds the list of suggestions in the appropriate order from the latest results of every bucket.
+     *
+     * @param currentTokenString the token string currently being considered by the {@link TokenSource}
+     * @param completedQuery     the {@link QueryToken} whose results were just added, used to determine whether to
+     *                           hide the suggestions if there are none (null to never hide them)
+     */
+    private void rebuildSuggestions(final @NonNull String currentTokenString,
+                                    final @Nullable QueryToken completedQuery) {
+        // Only rebuild once at the end of a batch
+        if (mBatchDepth > 0 && Looper.myLooper() == Looper.getMainLooper()) {
+            mBatchRebuildPending = true;
+            if (completedQuery != null) {
+                mBatchCompletedQuery = completedQuery;
+            }
+            return;
+        }
+
+        // Wait for more buckets to report their results if required by the display policy
+        final State state = mState.get();
+        final SuggestionsDisplayPolicy policy = mDisplayPolicy;
+        if (!isReadyToDisplay(state, policy, currentTokenString, completedQuery)) {
+            return;
+        }
+
+        // Note: The results in a published state never change, so they can be used without copying them
+        final Map<String, SuggestionsResult> results = orderResults(
+                reservePlaceholderRows(state, policy, currentTokenString, completedQuery), policy);
+        final int generation = mBuildGeneration.incrementAndGet();
+        final SuggestionsListBuilder builder = mSuggestionsListBuilder;
+        final Executor buildExecutor = mBuildExecutor;
+        if (buildExecutor == null) {
+            final List<Suggestible> suggestions = builder.buildSuggestions(results, currentTokenString);
+            postApplySuggestions(generation, suggestions, currentTokenString, completedQuery);
+            return;
+        }
+
+        // Build on the executor, and only apply the list if nothing changed meanwhile
+        buildExecutor.execute(() -> {
+            if (isStaleBuild(generation)) {
+                return;
+            }
+            final List<Suggestible> suggestions = builder.buildSuggestions(results, currentTokenString);
+            postApplySuggestions(generation, suggestions, currentTokenString, completedQuery);
+        });
+    }
+
+    /**
+     * Applies a newly built list of suggestions on the UI thread. If called from another thread, the list is posted to
+     * the UI thread, and only applied if nothing changed meanwhile.
+     */
+    private void postApplySuggestions(final int generation,
+                                      final @NonNull List<Suggestible> suggestions,
+                                      final @NonNull String currentTokenString,
+                                      final @Nullable QueryToken completedQuery) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            applySuggestions(suggestions, currentTokenString, completedQuery);
+            return;
+        }
+        mMainHandler.post(() -> {
+            if (!isStaleBuild(generation)) {
+                applySuggestions(suggestions, currentTokenString, completedQuery);
+            }
+        });
+    }
+
+    /**
+     * Determines whether the suggestions for the current token can be displayed according to the display policy. If
+     * not, the suggestions are rebuilt again once the display deadline passes.
+     */
+    private boolean isReadyToDisplay(final @NonNull State state,
+                                     final @NonNull SuggestionsDisplayPolicy policy,
+                                     final @NonNull String currentTokenString,
+                                     final @Nullable QueryToken completedQuery) {
+        if (policy.MIN_BUCKETS <= 1) {
+            return true;
+        }
+        QueryToken currentQuery = new QueryToken(currentTokenString);
+        Long startTime = state.queryStartTimes.get(currentQuery);
+        Map<String, Long> waitingForBuckets = state.waitingForResults.get(currentQuery);
+        final long now = SystemClock.uptimeMillis();
+        if (startTime == null || waitingForBuckets == null || countPending(waitingForBuckets, now) == 0) {
+            return true;
+        }
+
+        // Note: Provisional results refined from a shorter token do not count, only buckets that actually reported
+        Set<String> arrivedBuckets = state.arrivedBuckets.get(currentQuery);
+        int arrived = (arrivedBuckets != null) ? arrivedBuckets.size() : 0;
+        if (arrived >= policy.MIN_BUCKETS) {
+            return true;
+        }
+        if (policy.DISPLAY_DEADLINE_MILLIS <= 0) {
+            return false;
+        }
+        long displayTime = startTime + policy.DISPLAY_DEADLINE_MILLIS;
+        if (displayTime <= now) {
+            return true;
+        }
+        mMainHandler.removeCallbacksAndMessages(mDisplayDeadlineToken);
+        mMainHandler.postAtTime(() -> rebuildSuggestions(currentTokenString, completedQuery), mDisplayDeadlineToken,
+                displayTime);
+        return false;
+    }
+
+    /**
+     * Reserves rows for the buckets listed by the display policy that have not reported their results for the current
+     * token yet, so their results do not shift the suggestions of the buckets listed after them once they arrive. The
+     * suggestions are rebuilt again once the first of these buckets is no longer waited on.
+     */
+    @NonNull
+    private Map<String, SuggestionsResult> reservePlaceholderRows(final @NonNull State state,
+                                                                  final @NonNull SuggestionsDisplayPolicy policy,
+                                                                  final @NonNull String currentTokenString,
+                                                                  final @Nullable QueryToken completedQuery) {
+        QueryToken currentQuery = new QueryToken(currentTokenString);
+        Map<String, Long> waitingForBuckets = state.waitingForResults.get(currentQuery);
+        Long startTime = state.queryStartTimes.get(currentQuery);
+        if (policy.PLACEHOLDER_ROWS <= 0 || waitingForBuckets == null || startTime == null) {
+            return state.results;
+        }
+
+        final long now = SystemClock.uptimeMillis();
+        Map<String, SuggestionsResult> results = state.results;
+        long nextDeadline = Long.MAX_VALUE;
+        for (String bucket : policy.BUCKET_ORDER) {
+            Long deadline = waitingForBuckets.get(bucket);
+            SuggestionsResult result = results.get(bucket);
+            if (deadline == null || (result != null && result.getQueryToken().equals(currentQuery))) {
+                continue;
+            }
+            // Note: Results reported after the drop deadline are not displayed, so no rows are reserved past it
+            if (policy.DROP_DEADLINE_MILLIS > 0) {
+                deadline = Math.min(deadline, startTime + policy.DROP_DEADLINE_MILLIS);
+            }
+            if (deadline <= now) {
+                continue;
+            }
+            if (results == state.results) {
+                results = new LinkedHashMap<>(state.results);
+            }
+            results.put(bucket, new SuggestionsResult(currentQuery,
+                    SuggestionPlaceholder.reserveRows(bucket, policy.PLACEHOLDER_ROWS)));
+            nextDeadline = Math.min(nextDeadline, deadline);
+        }
+        if (nextDeadline != Long.MAX_VALUE) {
+            mMainHandler.removeCallbacksAndMessages(mPlaceholderDeadlineToken);
+            mMainHandler.postAtTime(() -> rebuildSuggestions(currentTokenString, completedQuery),
+                    mPlaceholderDeadlineToken, nextDeadline);
+        }
+        return results;
+    }
+
+    /**
+     * Orders the results of the buckets as listed by the display policy, so the buckets are listed in the same order
+     * regardless of which one reports first.
+     */
+    @NonNull
+    private static Map<String, SuggestionsResult> orderResults(final @NonNull Map<String, SuggestionsResult> results,
+                                                               final @NonNull SuggestionsDisplayPolicy policy) {
+        if (policy.BUCKET_ORDER.isEmpty()) {
+            return results;
+        }
+        Map<String, SuggestionsResult> ordered = new LinkedHashMap<>();
+        for (String bucket : policy.BUCKET_ORDER) {
+            SuggestionsResult result = results.get(bucket);
+            if (result != null) {
+                ordered.put(bucket, result);
+            }
+        }
+        for (Map.Entry<String, SuggestionsResult> entry : results.entrySet()) {
+            if (!ordered.containsKey(entry.getKey())) {
+                ordered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(ordered);
+    }
+
+    /**
+     * Replaces the displayed suggestions with a newly built list.
+     */
+    private void applySuggestions(final @NonNull List<Suggestible> suggestions,
+                                  final @NonNull String currentTokenString,
+                                  final @Nullable QueryToken completedQuery) {
+        mSuggestions.set(Collections.unmodifiableList(new ArrayList<>(suggestions)));
+
+        // If we have suggestions, display them
+        if (suggestions.size() > 0) {
+            mSuggestionsVisibilityManager.displaySuggestions(true);
+        } else if (completedQuery != null) {
+            hideSuggestionsIfNecessary(completedQuery, currentTokenString);
+        }
+
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Determines if a list being built has been superseded by newer results or a newer {@link QueryToken}.
+     */
+    private boolean isStaleBuild(final int generation) {
+        return generation != mBuildGeneration.get();
+    }
+
     /**
      * Hides the suggestions if there are no more incoming queries.
      *
      * @param currentQuery the most recent {@link QueryToken}
-     * @param source       the associated {@link TokenSource} to use for reference
+     * @param currentTS    the token string currently being considered by the {@link TokenSource}
      */
     private void hideSuggestionsIfNecessary(final @NonNull QueryToken currentQuery,
-                                            final @NonNull TokenSource source) {
+                                            final @NonNull String currentTS) {
         String queryTS = currentQuery.getTokenString();
-        String currentTS = source.getCurrentTokenString();
         if (!isWaitingForResults(currentQuery) && queryTS != null && queryTS.equals(currentTS)) {
             mSuggestionsVisibilityManager.displaySuggestions(false);
         }
     }
 
+    /**
+     * @return true if the given bucket handles the given {@link QueryToken} according to the routing table
+     */
+    private boolean isRouted(final @NonNull QueryToken queryToken, final @NonNull String bucket) {
+        SuggestionRoutingTable routingTable = mRoutingTable;
+        return routingTable == null || routingTable.isRouted(queryToken, bucket);
+    }
+
     /**
      * Determines if the adapter is still waiting for results for a given {@link QueryToken}
      *
@@ -170,9 +711,276 @@ public class SuggestionsAdapter extends BaseAdapter {
      * @return true if still waiting for the results of the current query
      */
     private boolean isWaitingForResults(QueryToken currentQuery) {
-        synchronized (mLock) {
-            Set<String> buckets = mWaitingForResults.get(currentQuery);
-            return buckets != null && buckets.size() > 0;
+        Map<String, Long> buckets = mState.get().waitingForResults.get(currentQuery);
+        return buckets != null && countPending(buckets, SystemClock.uptimeMillis()) > 0;
+    }
+
+    /**
+     * @return the number of deadlines in the given map that have not passed yet
+     */
+    private static int countPending(final @NonNull Map<?, Long> deadlines, final long now) {
+        int count = 0;
+        for (long deadline : deadlines.values()) {
+            if (deadline > now) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <K, V> void evictEldest(final @NonNull LinkedHashMap<K, V> map, final int maxSize) {
+        Iterator<K> keys = map.keySet().iterator();
+        while (map.size() > maxSize && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    // --------------------------------------------------
+    // State
+    // --------------------------------------------------
+
+    /**
+     * A change to apply to a {@link State.Editor}. Must not have side effects, as it may be applied more than once.
+     */
+    private interface StateUpdate {
+        void apply(@NonNull State.Editor editor);
+    }
+
+    /**
+     * Immutable snapshot of the results and the query tokens being waited on. Never modified once published, changes
+     * are made to a copy using an {@link Editor}.
+     */
+    private static final class State {
+
+        static final State EMPTY = new State(Collections.<String, SuggestionsResult>emptyMap(),
+                new LinkedHashMap<String, Long>(), new LinkedHashMap<QueryToken, Map<String, Long>>(),
+                Collections.<String>emptySet(), new LinkedHashMap<QueryToken, Long>(),
+                Collections.<String, Long>emptyMap(), new LinkedHashMap<QueryToken, Set<String>>(),
+                new HashMap<String, BucketLatencyStats>());
+
+        // Map from a given bucket (defined by a unique string) to the latest query result for that bucket
+        // Example buckets: "Person-Database", "Person-Network", "Companies-Database", "Companies-Network"
+        final Map<String, SuggestionsResult> results;
+
+        // Map from a given bucket to the time its result expires, oldest result first
+        final LinkedHashMap<String, Long> resultExpiryTimes;
+
+        // Map from a query token to the buckets it is still waiting on and the time each bucket times out, oldest first
+        final LinkedHashMap<QueryToken, Map<String, Long>> waitingForResults;
+
+        // Buckets whose latest result is complete, but that can return more results when asked for the next page
+        final Set<String> bucketsWithMoreResults;
+
+        // Map from a query token to the time it was received, oldest first
+        final LinkedHashMap<QueryToken, Long> queryStartTimes;
+
+        // Map from a bucket to the time the next page of its latest result was requested
+        final Map<String, Long> pageRequestTimes;
+
+        // Map from a query token to the buckets that reported their results for it in time, oldest first
+        final LinkedHashMap<QueryToken, Set<String>> arrivedBuckets;
+
+        // Map from a bucket to the time it took to report its results
+        final Map<String, BucketLatencyStats> latencies;
+
+        private State(final @NonNull Map<String, SuggestionsResult> results,
+                      final @NonNull LinkedHashMap<String, Long> resultExpiryTimes,
+                      final @NonNull LinkedHashMap<QueryToken, Map<String, Long>> waitingForResults,
+                      final @NonNull Set<String> bucketsWithMoreResults,
+                      final @NonNull LinkedHashMap<QueryToken, Long> queryStartTimes,
+                      final @NonNull Map<String, Long> pageRequestTimes,
+                      final @NonNull LinkedHashMap<QueryToken, Set<String>> arrivedBuckets,
+                      final @NonNull Map<String, BucketLatencyStats> latencies) {
+            this.results = results;
+            this.resultExpiryTimes = resultExpiryTimes;
+            this.waitingForResults = waitingForResults;
+            this.bucketsWithMoreResults = bucketsWithMoreResults;
+            this.queryStartTimes = queryStartTimes;
+            this.pageRequestTimes = pageRequestTimes;
+            this.arrivedBuckets = arrivedBuckets;
+            this.latencies = latencies;
+        }
+
+        @NonNull
+        Editor edit(final long now) {
+            return new Editor(this, now);
+        }
+
+        /**
+         * Mutable copy of a {@link State}.
+         */
+        static final class Editor {
+
+            final long now;
+            final Map<String, SuggestionsResult> results;
+            final LinkedHashMap<String, Long> resultExpiryTimes;
+            final LinkedHashMap<QueryToken, Map<String, Long>> waitingForResults;
+            final Set<String> bucketsWithMoreResults;
+            final LinkedHashMap<QueryToken, Long> queryStartTimes;
+            final Map<String, Long> pageRequestTimes;
+            final LinkedHashMap<QueryToken, Set<String>> arrivedBuckets;
+            final Map<String, BucketLatencyStats> latencies;
+
+            Editor(final @NonNull State state, final long now) {
+                this.now = now;
+                results = new LinkedHashMap<>(state.results);
+                resultExpiryTimes = new LinkedHashMap<>(state.resultExpiryTimes);
+                waitingForResults = new LinkedHashMap<>();
+                for (Map.Entry<QueryToken, Map<String, Long>> entry : state.waitingForResults.entrySet()) {
+                    waitingForResults.put(entry.getKey(), new HashMap<>(entry.getValue()));
+                }
+                bucketsWithMoreResults = new HashSet<>(state.bucketsWithMoreResults);
+                queryStartTimes = new LinkedHashMap<>(state.queryStartTimes);
+                pageRequestTimes = new HashMap<>(state.pageRequestTimes);
+                arrivedBuckets = new LinkedHashMap<>();
+                for (Map.Entry<QueryToken, Set<String>> entry : state.arrivedBuckets.entrySet()) {
+                    arrivedBuckets.put(entry.getKey(), new HashSet<>(entry.getValue()));
+                }
+                latencies = new HashMap<>(state.latencies);
+            }
+
+            /**
+             * Sets the latest result for a bucket.
+             */
+            void putResult(final @NonNull String bucket, final @NonNull SuggestionsResult result, final long ttlMillis) {
+                results.put(bucket, result);
+                resultExpiryTimes.remove(bucket);
+                resultExpiryTimes.put(bucket, now + ttlMillis);
+                bucketsWithMoreResults.remove(bucket);
+            }
+
+            /**
+             * Records the latency of a bucket reporting its results for the given {@link QueryToken}, measured from the
+             * time the token was received, or the time the page was requested if the bucket is loading another page.
+             *
+             * @return true if the results missed the drop deadline of the policy, and must be dropped
+             */
+            boolean recordArrival(final @NonNull QueryToken queryToken,
+                                  final @NonNull String bucket,
+                                  final @NonNull SuggestionsDisplayPolicy policy) {
+                Long startTime = getStartTime(queryToken, bucket);
+                if (startTime == null) {
+                    return false;
+                }
+                long latency = now - startTime;
+                boolean dropped = policy.DROP_DEADLINE_MILLIS > 0 && latency > policy.DROP_DEADLINE_MILLIS;
+                if (!dropped) {
+                    Set<String> buckets = arrivedBuckets.get(queryToken);
+                    if (buckets == null) {
+                        buckets = new HashSet<>();
+                        arrivedBuckets.put(queryToken, buckets);
+                    }
+                    buckets.add(bucket);
+                }
+                BucketLatencyStats stats = latencies.get(bucket);
+                latencies.put(bucket, (stats != null ? stats : BucketLatencyStats.EMPTY).record(latency, dropped));
+                return dropped;
+            }
+
+            /**
+             * @return true if results for the given {@link QueryToken} would miss the drop deadline of the policy
+             */
+            boolean isPastDropDeadline(final @NonNull QueryToken queryToken,
+                                       final @NonNull String bucket,
+                                       final @NonNull SuggestionsDisplayPolicy policy) {
+                Long startTime = getStartTime(queryToken, bucket);
+                return startTime != null && policy.DROP_DEADLINE_MILLIS > 0
+                        && now - startTime > policy.DROP_DEADLINE_MILLIS;
+            }
+
+            /**
+             * @return the time the results of a bucket for the given {@link QueryToken} were requested, or null
+             */
+            @Nullable
+            private Long getStartTime(final @NonNull QueryToken queryToken, final @NonNull String bucket) {
+                SuggestionsResult current = results.get(bucket);
+                Long pageRequestTime = pageRequestTimes.get(bucket);
+                if (pageRequestTime != null && current != null && current.getQueryToken().equals(queryToken)) {
+                    return pageRequestTime;
+                }
+                return queryStartTimes.get(queryToken);
+            }
+
+            /**
+             * Stops waiting for a bucket to report results for the given {@link QueryToken}.
+             */
+            void removeWaiting(final @NonNull QueryToken queryToken, final @NonNull String bucket) {
+                Map<String, Long> waitingForBuckets = waitingForResults.get(queryToken);
+                if (waitingForBuckets != null) {
+                    waitingForBuckets.remove(bucket);
+                    if (waitingForBuckets.size() == 0) {
+                        waitingForResults.remove(queryToken);
+                    }
+                }
+            }
+
+            /**
+             * Starts waiting for a bucket to report results for the given {@link QueryToken}.
+             */
+            void addWaiting(final @NonNull QueryToken queryToken, final @NonNull String bucket, final long timeoutMillis) {
+                Map<String, Long> waitingForBuckets = waitingForResults.get(queryToken);
+                if (waitingForBuckets == null) {
+                    waitingForBuckets = new HashMap<>();
+                    waitingForResults.put(queryToken, waitingForBuckets);
+                }
+                waitingForBuckets.put(bucket, now + timeoutMillis);
+            }
+
+            /**
+             * Prunes the edited state and returns it as a new {@link State}.
+             */
+            @NonNull
+            State build() {
+                pruneWaitingForResults();
+                pruneResults();
+                bucketsWithMoreResults.retainAll(results.keySet());
+                pageRequestTimes.keySet().retainAll(results.keySet());
+                evictEldest(queryStartTimes, MAX_WAITING_QUERY_TOKENS);
+                arrivedBuckets.keySet().retainAll(queryStartTimes.keySet());
+                return new State(Collections.unmodifiableMap(results), resultExpiryTimes, waitingForResults,
+                        bucketsWithMoreResults, queryStartTimes, pageRequestTimes, arrivedBuckets, latencies);
+            }
+
+            /**
+             * Stops waiting for buckets that have not reported results before their deadline, and for the oldest query
+             * tokens if too many are being waited on.
+             */
+            private void pruneWaitingForResults() {
+                Iterator<Map<String, Long>> tokens = waitingForResults.values().iterator();
+                while (tokens.hasNext()) {
+                    Map<String, Long> buckets = tokens.next();
+                    Iterator<Long> deadlines = buckets.values().iterator();
+                    while (deadlines.hasNext()) {
+                        if (deadlines.next() <= now) {
+                            deadlines.remove();
+                        }
+                    }
+                    if (buckets.isEmpty()) {
+                        tokens.remove();
+                    }
+                }
+                evictEldest(waitingForResults, MAX_WAITING_QUERY_TOKENS);
+            }
+
+            /**
+             * Removes results that have expired, and the oldest results if there are too many buckets.
+             */
+            private void pruneResults() {
+                Iterator<Map.Entry<String, Long>> entries = resultExpiryTimes.entrySet().iterator();
+                while (entries.hasNext()) {
+                    Map.Entry<String, Long> entry = entries.next();
+                    if (entry.getValue() <= now) {
+                        results.remove(entry.getKey());
+                        entries.remove();
+                    }
+                }
+                while (resultExpiryTimes.size() > MAX_RESULT_BUCKETS) {
+                    String eldest = resultExpiryTimes.keySet().iterator().next();
+                    resultExpiryTimes.remove(eldest);
+                    results.remove(eldest);
+                }
+            }
         }
     }
 
@@ -182,14 +990,15 @@ public class SuggestionsAdapter extends BaseAdapter {
 
     @Override
     public int getCount() {
-        return mSuggestions.size();
+        return mSuggestions.get().size();
     }
 
     @Override
     public Suggestible getItem(int position) {
+        List<Suggestible> suggestions = mSuggestions.get();
         Suggestible mention = null;
-        if (position >= 0 && position < mSuggestions.size()) {
-            mention = mSuggestions.get(position);
+        if (position >= 0 && position < suggestions.size()) {
+            mention = suggestions.get(position);
         }
         return mention;
     }
@@ -199,6 +1008,17 @@ public class SuggestionsAdapter extends BaseAdapter {
         return position;
     }
 
+    @Override
+    public boolean areAllItemsEnabled() {
+        return mDisplayPolicy.PLACEHOLDER_ROWS == 0;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        // Note: Rows reserved for buckets that have not reported their results yet cannot be clicked
+        return !(getItem(position) instanceof SuggestionPlaceholder);
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
         final Suggestible suggestion = getItem(position);
@@ -231,4 +1051,66 @@ public class SuggestionsAdapter extends BaseAdapter {
         mSuggestionsListBuilder = suggestionsListBuilder;
     }
 
+    /**
+     * Sets how long to wait for a bucket to report its results after a query token is received. Once a bucket times
+     * out, the adapter no longer waits for it (i.e. the suggestions may be hidden if there are no results).
+     *
+     * @param bucketTimeoutMillis the time to wait for each bucket, in milliseconds
+     */
+    public void setBucketTimeoutMillis(final long bucketTimeoutMillis) {
+        mBucketTimeoutMillis = bucketTimeoutMillis;
+    }
+
+    /**
+     * Sets how long to keep the latest result for a bucket before discarding it.
+     *
+     * @param resultTtlMillis the time to keep each result, in milliseconds
+     */
+    public void setResultTtlMillis(final long resultTtlMillis) {
+        mResultTtlMillis = resultTtlMillis;
+    }
+
+    /**
+     * Sets the {@link SuggestionsDisplayPolicy} deciding when to display the suggestions of a query answered by several
+     * buckets, and which results to drop for being too late.
+     *
+     * @param displayPolicy the {@link SuggestionsDisplayPolicy} to use
+     */
+    public void setDisplayPolicy(final @NonNull SuggestionsDisplayPolicy displayPolicy) {
+        mDisplayPolicy = displayPolicy;
+    }
+
+    /**
+     * Sets the {@link SuggestionRoutingTable} deciding which buckets handle each kind of {@link QueryToken}. The
+     * adapter does not wait for buckets that are not routed for a token, and ignores their results.
+     *
+     * @param routingTable the {@link SuggestionRoutingTable} to use, or null for all buckets to handle all tokens
+     */
+    public void setRoutingTable(final @Nullable SuggestionRoutingTable routingTable) {
+        mRoutingTable = routingTable;
+    }
+
+    /**
+     * Sets an {@link Executor} to build the list of suggestions on, i.e. if the {@link SuggestionsListBuilder} does
+     * expensive ranking or merging. The list is built from an immutable snapshot of the latest results of every bucket,
+     * and is only displayed if no newer results or {@link QueryToken} were received while it was being built. Note that
+     * {@link SuggestionsListBuilder#buildSuggestions(Map, String)} may then be called from the executor's threads, so
+     * it must not touch any views.
+     *
+     * @param buildExecutor the {@link Executor} to use, or null to build the list on the thread that adds the results
+     */
+    public void setBuildExecutor(final @Nullable Executor buildExecutor) {
+        mBuildExecutor = buildExecutor;
+    }
+
+    /**
+     * Sets the {@link SuggestionsResultCache} used to show provisional suggestions while the results for a longer token
+     * are being generated, i.e. to customize its size or how it filters suggestions.
+     *
+     * @param resultCache the {@link SuggestionsResultCache} to use
+     */
+    public void setSuggestionsResultCache(final @NonNull SuggestionsResultCache resultCache) {
+        mResultCache = resultCache;
+    }
+
 }
@@ -0,0 +1,115 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Class used to configure when the {@link SuggestionsAdapter} displays the suggestions of a query that is answered by
+ * several buckets. Instantiate using the {@link SuggestionsDisplayPolicy.Builder} class.
+ * <p>
+ * The suggestions are displayed once {@link #MIN_BUCKETS} buckets have reported their results, or once
+ * {@link #DISPLAY_DEADLINE_MILLIS} have passed since the query was received, whichever comes first. Buckets that report
+ * their results after {@link #DROP_DEADLINE_MILLIS} are dropped. The buckets listed in {@link #BUCKET_ORDER} are passed
+ * to the {@link com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder} in that order, so their
+ * suggestions are listed in the same order regardless of which bucket answers first. While a bucket listed in
+ * {@link #BUCKET_ORDER} has not reported its results, {@link #PLACEHOLDER_ROWS} rows are reserved for it (see
+ * {@link SuggestionPlaceholder}), so its results do not shift the suggestions of the buckets listed after it.
+ */
+public class SuggestionsDisplayPolicy {
+
+    /**
+     * Policy displaying the suggestions as soon as any bucket reports results, and never dropping results.
+     */
+    public static final SuggestionsDisplayPolicy IMMEDIATE = new Builder().build();
+
+    // Number of buckets that must report their results before the suggestions are displayed
+    public final int MIN_BUCKETS;
+
+    // Time after which the suggestions are displayed even if fewer buckets reported their results (0 for no deadline)
+    public final long DISPLAY_DEADLINE_MILLIS;
+
+    // Time after which results reported by a bucket are dropped (0 for no deadline)
+    public final long DROP_DEADLINE_MILLIS;
+
+    // Order in which the results of the buckets are passed to the list builder (buckets not listed come last)
+    @NonNull public final List<String> BUCKET_ORDER;
+
+    // Number of rows reserved for each bucket of the order that has not reported its results yet (0 to reserve none)
+    public final int PLACEHOLDER_ROWS;
+
+    private SuggestionsDisplayPolicy(final int minBuckets,
+                                     final long displayDeadlineMillis,
+                                     final long dropDeadlineMillis,
+                                     final @NonNull List<String> bucketOrder,
+                                     final int placeholderRows) {
+        MIN_BUCKETS = minBuckets;
+        DISPLAY_DEADLINE_MILLIS = displayDeadlineMillis;
+        DROP_DEADLINE_MILLIS = dropDeadlineMillis;
+        BUCKET_ORDER = bucketOrder;
+        PLACEHOLDER_ROWS = placeholderRows;
+    }
+
+    public static class Builder {
+
+        // Default values for configuration
+        private int minBuckets = 1;
+        private long displayDeadlineMillis = 0;
+        private long dropDeadlineMillis = 0;
+        private List<String> bucketOrder = Collections.emptyList();
+        private int placeholderRows = 0;
+
+        @NonNull
+        public Builder setMinBuckets(int minBuckets) {
+            this.minBuckets = minBuckets;
+            return this;
+        }
+
+        @NonNull
+        public Builder setDisplayDeadlineMillis(long displayDeadlineMillis) {
+            this.displayDeadlineMillis = displayDeadlineMillis;
+            return this;
+        }
+
+        @NonNull
+        public Builder setDropDeadlineMillis(long dropDeadlineMillis) {
+            this.dropDeadlineMillis = dropDeadlineMillis;
+            return this;
+        }
+
+        @NonNull
+        public Builder setBucketOrder(@NonNull List<String> bucketOrder) {
+            this.bucketOrder = bucketOrder;
+            return this;
+        }
+
+        @NonNull
+        public Builder setPlaceholderRows(int placeholderRows) {
+            this.placeholderRows = placeholderRows;
+            return this;
+        }
+
+        @NonNull
+        public SuggestionsDisplayPolicy build() {
+            return new SuggestionsDisplayPolicy(Math.max(minBuckets, 1), displayDeadlineMillis, dropDeadlineMillis,
+                    Collections.unmodifiableList(new ArrayList<>(bucketOrder)), Math.max(placeholderRows, 0));
+        }
+    }
+}
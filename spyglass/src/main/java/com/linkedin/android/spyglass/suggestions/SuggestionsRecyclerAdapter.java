@@ -0,0 +1,147 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.AdapterListUpdateCallback;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Base class for displaying suggestions in a {@link RecyclerView}, as an alternative to the {@link SuggestionsAdapter}
+ * used with the ListView of the {@link com.linkedin.android.spyglass.ui.RichEditorView}.
+ * <p>
+ * Every time a new list of suggestions is submitted, the differences with the current list are computed on a background
+ * thread, matching items by {@link Suggestible#getSuggestibleId()}. Only the rows that were inserted, moved, removed or
+ * changed are then updated, rather than rebinding every visible row.
+ * <p>
+ * Note: The RecyclerView library is not a dependency of Spyglass, so it must be added to apps using this class.
+ *
+ * @param <VH> the type of {@link RecyclerView.ViewHolder} used by the subclass
+ */
+public abstract class SuggestionsRecyclerAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    private final AsyncListDiffer<Suggestible> mDiffer;
+
+    public SuggestionsRecyclerAdapter() {
+        this(null);
+    }
+
+    /**
+     * @param diffExecutor the {@link Executor} to compute the differences between lists on, or null to use a shared
+     *                     background thread pool
+     */
+    public SuggestionsRecyclerAdapter(final @Nullable Executor diffExecutor) {
+        AsyncDifferConfig.Builder<Suggestible> config = new AsyncDifferConfig.Builder<>(new ItemCallback());
+        if (diffExecutor != null) {
+            config.setBackgroundThreadExecutor(diffExecutor);
+        }
+        mDiffer = new AsyncListDiffer<>(new AdapterListUpdateCallback(this), config.build());
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Replaces the displayed suggestions. The rows are updated once the differences with the current suggestions have
+     * been computed, and submitting another list before then discards the pending one. Must be called on the UI thread.
+     *
+     * @param suggestions the new list of suggestions (copied, so it can be modified afterwards)
+     */
+    public void submitSuggestions(final @NonNull List<? extends Suggestible> suggestions) {
+        mDiffer.submitList(new ArrayList<Suggestible>(suggestions));
+    }
+
+    /**
+     * Replaces the displayed suggestions with the suggestions currently held by a {@link SuggestionsAdapter}, i.e. from
+     * a {@link android.database.DataSetObserver} registered on it.
+     *
+     * @param adapter the {@link SuggestionsAdapter} to display the suggestions of
+     */
+    public void submitSuggestions(final @NonNull SuggestionsAdapter adapter) {
+        mDiffer.submitList(adapter.getSuggestions());
+    }
+
+    /**
+     * Returns the suggestion displayed at the given position.
+     *
+     * @param position the adapter position
+     *
+     * @return the {@link Suggestible} at that position
+     */
+    @NonNull
+    public Suggestible getItem(final int position) {
+        return mDiffer.getCurrentList().get(position);
+    }
+
+    /**
+     * @return the list of suggestions currently displayed (read-only)
+     */
+    @NonNull
+    public List<Suggestible> getCurrentSuggestions() {
+        return mDiffer.getCurrentList();
+    }
+
+    @Override
+    public int getItemCount() {
+        return mDiffer.getCurrentList().size();
+    }
+
+    // --------------------------------------------------
+    // Protected Methods
+    // --------------------------------------------------
+
+    /**
+     * Determines whether a suggestion with the same id as a displayed suggestion needs its row to be rebound. By
+     * default, this is the case if its primary text changed. Called on the background thread.
+     *
+     * @param oldSuggestion the displayed {@link Suggestible}
+     * @param newSuggestion the new {@link Suggestible} with the same id
+     *
+     * @return true if the row does not need to be rebound
+     */
+    protected boolean areContentsTheSame(final @NonNull Suggestible oldSuggestion,
+                                         final @NonNull Suggestible newSuggestion) {
+        return oldSuggestion.getSuggestiblePrimaryText().equals(newSuggestion.getSuggestiblePrimaryText());
+    }
+
+    // --------------------------------------------------
+    // ItemCallback
+    // --------------------------------------------------
+
+    private class ItemCallback extends DiffUtil.ItemCallback<Suggestible> {
+
+        @Override
+        public boolean areItemsTheSame(@NonNull Suggestible oldItem, @NonNull Suggestible newItem) {
+            return oldItem.getSuggestibleId() == newItem.getSuggestibleId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Suggestible oldItem, @NonNull Suggestible newItem) {
+            return SuggestionsRecyclerAdapter.this.areContentsTheSame(oldItem, newItem);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least-recently-used cache of {@link SuggestionsResult}s, keyed by bucket and {@link QueryToken}.
+ * <p>
+ * While the results for a new {@link QueryToken} are being generated, the cache can provide a provisional result for it
+ * by filtering the cached result of a shorter token that the new token extends (i.e. "@john" extends "@joh"). The
+ * provisional result is meant to be displayed until the actual result for the new token arrives.
+ */
+public class SuggestionsResultCache {
+
+    private final int mMaxSize;
+
+    // Note: Iteration order is access order, so the least recently used entry is always first
+    private final LinkedHashMap<Key, SuggestionsResult> mResults = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxSize the maximum number of results to keep (across all buckets)
+     */
+    public SuggestionsResultCache(final int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Adds the result of a query for the given bucket to the cache, evicting the least recently used result if the
+     * cache is full.
+     *
+     * @param bucket the bucket the result belongs to
+     * @param result the {@link SuggestionsResult} to cache
+     */
+    public synchronized void put(final @NonNull String bucket, final @NonNull SuggestionsResult result) {
+        String tokenString = result.getQueryToken().getTokenString();
+        if (mMaxSize <= 0 || tokenString.length() == 0) {
+            return;
+        }
+        mResults.put(new Key(bucket, tokenString), result);
+        while (mResults.size() > mMaxSize) {
+            mResults.remove(mResults.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Returns a provisional result for the given {@link QueryToken} in the given bucket, made by filtering the cached
+     * result for the longest token that the given token extends.
+     *
+     * @param bucket     the bucket to get a result for
+     * @param queryToken the {@link QueryToken} to get a result for
+     *
+     * @return a {@link SuggestionsResult} for queryToken, or null if no cached token is a prefix of it
+     */
+    @Nullable
+    public synchronized SuggestionsResult getRefinedResult(final @NonNull String bucket,
+                                                           final @NonNull QueryToken queryToken) {
+        String tokenString = queryToken.getTokenString();
+        Key best = null;
+        for (Key key : mResults.keySet()) {
+            if (key.mBucket.equals(bucket)
+                    && key.mTokenString.length() <= tokenString.length()
+                    && tokenString.regionMatches(true, 0, key.mTokenString, 0, key.mTokenString.length())
+                    && (best == null || key.mTokenString.length() > best.mTokenString.length())) {
+                best = key;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+
+        // Note: Looking up the entry marks it as recently used
+        SuggestionsResult cached = mResults.get(best);
+        String keywords = SuggestionDirectoryWriter.normalize(queryToken.getKeywords());
+        List<Suggestible> suggestions = new ArrayList<>();
+        for (Suggestible suggestion : cached.getSuggestions()) {
+            if (matches(suggestion, keywords)) {
+                suggestions.add(suggestion);
+            }
+        }
+        return new SuggestionsResult(queryToken, suggestions);
+    }
+
+    /**
+     * Removes all results from the cache.
+     */
+    public synchronized void clear() {
+        mResults.clear();
+    }
+
+    /**
+     * @return the number of results in the cache
+     */
+    public synchronized int size() {
+        return mResults.size();
+    }
+
+    /**
+     * Determines whether a suggestion from a cached result should be kept in the provisional result for a longer
+     * token. By default, a suggestion is kept if its primary text, or any word in it, starts with the keywords.
+     * Override to match the filtering done by the query client.
+     *
+     * @param suggestion the {@link Suggestible} to check
+     * @param keywords   the keywords of the new {@link QueryToken}, as normalized by
+     *                   {@link SuggestionDirectoryWriter#normalize(String)}
+     *
+     * @return true if the suggestion should be kept
+     */
+    protected boolean matches(final @NonNull Suggestible suggestion, final @NonNull String keywords) {
+        String text = SuggestionDirectoryWriter.normalize(suggestion.getSuggestiblePrimaryText());
+        return text.startsWith(keywords) || text.contains(" " + keywords);
+    }
+
+    // --------------------------------------------------
+    // Key
+    // --------------------------------------------------
+
+    private static class Key {
+
+        private final String mBucket;
+        private final String mTokenString;
+
+        Key(final @NonNull String bucket, final @NonNull String tokenString) {
+            mBucket = bucket;
+            mTokenString = tokenString;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return mBucket.equals(that.mBucket) && mTokenString.equals(that.mTokenString);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mBucket.hashCode() + mTokenString.hashCode();
+        }
+    }
+}
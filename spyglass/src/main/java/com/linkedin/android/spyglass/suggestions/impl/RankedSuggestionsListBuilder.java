@@ -0,0 +1,156 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionScorer;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Implementation of the {@link SuggestionsListBuilder} interface that merges the results of every bucket into a single
+ * list of the highest scoring suggestions, as ranked by a {@link SuggestionScorer}.
+ * <p>
+ * Suggestions with the same {@link Suggestible#getSuggestibleId()} are only displayed once, with their highest score.
+ * The merge only ever holds the best maxSuggestions suggestions, so it does not build the full list of suggestions from
+ * every bucket. Suggestions with equal scores keep the order in which they were returned.
+ */
+public class RankedSuggestionsListBuilder extends BasicSuggestionsListBuilder {
+
+    /**
+     * Scorer ranking suggestions by their position in the results of their bucket.
+     */
+    public static final SuggestionScorer POSITION_SCORER = (suggestion, bucket, position, keywords) -> -position;
+
+    private final int mMaxSuggestions;
+    private final SuggestionScorer mScorer;
+
+    /**
+     * @param maxSuggestions the maximum number of suggestions to display
+     */
+    public RankedSuggestionsListBuilder(final int maxSuggestions) {
+        this(maxSuggestions, POSITION_SCORER);
+    }
+
+    /**
+     * @param maxSuggestions the maximum number of suggestions to display
+     * @param scorer         the {@link SuggestionScorer} to rank suggestions with
+     */
+    public RankedSuggestionsListBuilder(final int maxSuggestions, final @NonNull SuggestionScorer scorer) {
+        if (maxSuggestions <= 0) {
+            throw new IllegalArgumentException("maxSuggestions must be positive");
+        }
+        mMaxSuggestions = maxSuggestions;
+        mScorer = scorer;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @NonNull
+    public List<Suggestible> buildSuggestions(final @NonNull Map<String, SuggestionsResult> latestResults,
+                                              final @NonNull String currentTokenString) {
+        // Best candidate seen so far for every suggestion id, and the best candidates overall (worst first)
+        Map<Integer, Candidate> candidates = new HashMap<>();
+        PriorityQueue<Candidate> best = new PriorityQueue<>(mMaxSuggestions + 1);
+        int sequence = 0;
+
+        for (Map.Entry<String, SuggestionsResult> entry : latestResults.entrySet()) {
+            SuggestionsResult result = entry.getValue();
+            if (!currentTokenString.equalsIgnoreCase(result.getQueryToken().getTokenString())) {
+                continue;
+            }
+            String bucket = entry.getKey();
+            String keywords = result.getQueryToken().getKeywords();
+            List<? extends Suggestible> suggestions = result.getSuggestions();
+            for (int position = 0; position < suggestions.size(); position++) {
+                Suggestible suggestion = suggestions.get(position);
+                double score = mScorer.score(suggestion, bucket, position, keywords);
+                Candidate candidate = candidates.get(suggestion.getSuggestibleId());
+                if (candidate == null) {
+                    candidate = new Candidate(suggestion, score, sequence++);
+                    candidates.put(suggestion.getSuggestibleId(), candidate);
+                } else if (score > candidate.mScore) {
+                    // Duplicate with a better score (note: the queue holds at most maxSuggestions candidates)
+                    if (candidate.mQueued) {
+                        best.remove(candidate);
+                        candidate.mQueued = false;
+                    }
+                    candidate.mSuggestion = suggestion;
+                    candidate.mScore = score;
+                } else {
+                    continue;
+                }
+                offer(best, candidate);
+            }
+        }
+
+        List<Suggestible> ranked = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            ranked.add(best.poll().mSuggestion);
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private void offer(final @NonNull PriorityQueue<Candidate> best, final @NonNull Candidate candidate) {
+        if (best.size() < mMaxSuggestions) {
+            best.add(candidate);
+            candidate.mQueued = true;
+        } else if (best.peek().compareTo(candidate) < 0) {
+            best.poll().mQueued = false;
+            best.add(candidate);
+            candidate.mQueued = true;
+        }
+    }
+
+    private static class Candidate implements Comparable<Candidate> {
+
+        private Suggestible mSuggestion;
+        private double mScore;
+        private final int mSequence;
+        private boolean mQueued = false;
+
+        Candidate(final @NonNull Suggestible suggestion, final double score, final int sequence) {
+            mSuggestion = suggestion;
+            mScore = score;
+            mSequence = sequence;
+        }
+
+        /**
+         * Orders candidates from worst to best: by score, and then by reverse order of appearance.
+         */
+        @Override
+        public int compareTo(@NonNull Candidate other) {
+            int byScore = Double.compare(mScore, other.mScore);
+            return (byScore != 0) ? byScore : Integer.compare(other.mSequence, mSequence);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Shares the queries made to {@link SuggestionSource}s between several editors (i.e. the comment boxes of a feed), so
+ * that identical queries are only made once.
+ * <p>
+ * Queries are identified by the bucket of the source and the keywords of the {@link QueryToken}, so the bucket of each
+ * shared source must be unique within the process. While a query is in flight, other requests for the same bucket and
+ * keywords wait for it and receive the same suggestions. Its suggestions are then kept for a short time, so that
+ * requests made shortly afterwards are answered without querying the source again. Failed queries are not kept.
+ * <p>
+ * Sources are usually wrapped using {@link #share(SuggestionSource)} and added to the
+ * {@link SuggestionSourceOrchestrator} of every editor.
+ */
+public class SuggestionQueryCoordinator {
+
+    // Default time to keep the suggestions of a query
+    public static final long DEFAULT_TTL_MILLIS = 5000;
+
+    // Default maximum number of queries to keep the suggestions of
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    @Nullable private static volatile SuggestionQueryCoordinator sInstance;
+
+    // Queries currently being made, by the first request for them
+    private final Map<Key, FutureTask<List<? extends Suggestible>>> mInFlight = new HashMap<>();
+
+    // Suggestions of recent queries, least recently used first
+    private final LinkedHashMap<Key, CachedSuggestions> mCache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long mTtlMillis = DEFAULT_TTL_MILLIS;
+    private int mMaxCacheSize = DEFAULT_CACHE_SIZE;
+
+    /**
+     * @return the coordinator shared by the whole process
+     */
+    @NonNull
+    public static SuggestionQueryCoordinator getInstance() {
+        SuggestionQueryCoordinator instance = sInstance;
+        if (instance == null) {
+            synchronized (SuggestionQueryCoordinator.class) {
+                instance = sInstance;
+                if (instance == null) {
+                    instance = new SuggestionQueryCoordinator();
+                    sInstance = instance;
+                }
+            }
+        }
+        return instance;
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Wraps the given source, so that its queries are shared through this coordinator.
+     *
+     * @param source the {@link SuggestionSource} to share
+     *
+     * @return a {@link SuggestionSource} with the same bucket and routing as the given one
+     */
+    @NonNull
+    public SuggestionSource share(final @NonNull SuggestionSource source) {
+        return new SharedSuggestionSource(source);
+    }
+
+    /**
+     * Returns the suggestions of the given source for the given {@link QueryToken}. Waits for the identical query if
+     * one is in flight, returns its recent suggestions if any, and otherwise queries the source on the calling thread.
+     *
+     * @param source     the {@link SuggestionSource} to query
+     * @param queryToken the {@link QueryToken} to get suggestions for
+     *
+     * @return the suggestions of the source (shared between requests, so must not be modified)
+     *
+     * @throws Exception if the source failed, or the calling thread was interrupted
+     */
+    @NonNull
+    @WorkerThread
+    public List<? extends Suggestible> getSuggestions(final @NonNull SuggestionSource source,
+                                                      final @NonNull QueryToken queryToken) throws Exception {
+        final Key key = new Key(source.getBucket(), queryToken.getKeywords());
+        while (true) {
+            FutureTask<List<? extends Suggestible>> task;
+            boolean isFirstRequest = false;
+            synchronized (this) {
+                List<? extends Suggestible> cached = getCached(key);
+                if (cached != null) {
+                    return cached;
+                }
+                task = mInFlight.get(key);
+                if (task == null) {
+                    task = new FutureTask<>(() -> query(key, source, queryToken));
+                    mInFlight.put(key, task);
+                    isFirstRequest = true;
+                }
+            }
+
+            if (isFirstRequest) {
+                task.run();
+            }
+            try {
+                return task.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (!isFirstRequest && cause instanceof InterruptedException) {
+                    // The request that made the query was cancelled, but this one was not, so query again
+                    continue;
+                }
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                }
+                throw e;
+            } catch (CancellationException e) {
+                if (!isFirstRequest) {
+                    continue;
+                }
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * @return the number of queries currently in flight
+     */
+    public synchronized int getInFlightCount() {
+        return mInFlight.size();
+    }
+
+    /**
+     * Forgets the suggestions of all previous queries (i.e. after the data of the sources changed). Queries in flight
+     * are not affected.
+     */
+    public synchronized void clear() {
+        mCache.clear();
+    }
+
+    /**
+     * Sets how long to keep the suggestions of a query (0 to only share queries while they are in flight).
+     *
+     * @param ttlMillis the time to keep the suggestions, in milliseconds
+     */
+    public synchronized void setTtlMillis(final long ttlMillis) {
+        mTtlMillis = ttlMillis;
+        if (ttlMillis <= 0) {
+            mCache.clear();
+        }
+    }
+
+    /**
+     * Sets the maximum number of queries to keep the suggestions of.
+     *
+     * @param maxCacheSize the number of queries
+     */
+    public synchronized void setMaxCacheSize(final int maxCacheSize) {
+        mMaxCacheSize = maxCacheSize;
+        evictEldest();
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    @NonNull
+    private List<? extends Suggestible> query(final @NonNull Key key, final @NonNull SuggestionSource source,
+                                              final @NonNull QueryToken queryToken) throws Exception {
+        boolean succeeded = false;
+        List<? extends Suggestible> suggestions = null;
+        try {
+            suggestions = source.getSuggestions(queryToken);
+            succeeded = true;
+            return suggestions;
+        } finally {
+            // Cache the suggestions before the query stops being in flight, so no request queries the source again
+            synchronized (this) {
+                if (succeeded && mTtlMillis > 0 && mMaxCacheSize > 0) {
+                    mCache.put(key, new CachedSuggestions(suggestions, SystemClock.uptimeMillis() + mTtlMillis));
+                    evictEldest();
+                }
+                mInFlight.remove(key);
+            }
+        }
+    }
+
+    @Nullable
+    private List<? extends Suggestible> getCached(final @NonNull Key key) {
+        CachedSuggestions cached = mCache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.mExpiryTime <= SystemClock.uptimeMillis()) {
+            mCache.remove(key);
+            return null;
+        }
+        return cached.mSuggestions;
+    }
+
+    private void evictEldest() {
+        Iterator<Key> eldest = mCache.keySet().iterator();
+        while (mCache.size() > Math.max(mMaxCacheSize, 0) && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+
+    // --------------------------------------------------
+    // Inner classes
+    // --------------------------------------------------
+
+    private static class Key {
+
+        private final String mBucket;
+        private final String mKeywords;
+
+        Key(final @NonNull String bucket, final @NonNull String keywords) {
+            mBucket = bucket;
+            mKeywords = keywords;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return mBucket.equals(other.mBucket) && mKeywords.equals(other.mKeywords);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * mBucket.hashCode() + mKeywords.hashCode();
+        }
+    }
+
+    private static class CachedSuggestions {
+
+        private final List<? extends Suggestible> mSuggestions;
+        private final long mExpiryTime;
+
+        CachedSuggestions(final @NonNull List<? extends Suggestible> suggestions, final long expiryTime) {
+            mSuggestions = suggestions;
+            mExpiryTime = expiryTime;
+        }
+    }
+
+    private class SharedSuggestionSource implements SuggestionSource {
+
+        private final SuggestionSource mSource;
+
+        SharedSuggestionSource(final @NonNull SuggestionSource source) {
+            mSource = source;
+        }
+
+        @NonNull
+        @Override
+        public String getBucket() {
+            return mSource.getBucket();
+        }
+
+        @Override
+        public boolean canHandle(final @NonNull QueryToken queryToken) {
+            return mSource.canHandle(queryToken);
+        }
+
+        @NonNull
+        @Override
+        public List<? extends Suggestible> getSuggestions(final @NonNull QueryToken queryToken) throws Exception {
+            return SuggestionQueryCoordinator.this.getSuggestions(mSource, queryToken);
+        }
+    }
+}
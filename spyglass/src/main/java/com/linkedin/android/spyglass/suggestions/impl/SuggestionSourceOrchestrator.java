@@ -0,0 +1,406 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.suggestions.SuggestionRoutingTable;
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * {@link QueryTokenReceiver} that queries several {@link SuggestionSource}s concurrently and reports the suggestions of
+ * each one to a {@link SuggestionsResultListener} (i.e. the {@link com.linkedin.android.spyglass.ui.RichEditorView}).
+ * Instantiate using the {@link SuggestionSourceOrchestrator.Builder} class.
+ * <p>
+ * Every {@link QueryToken} is sent to the sources that are routed for it (see {@link SuggestionRoutingTable}) and can
+ * handle it, each on a bounded background executor. Every bucket is reported exactly once per token: with the
+ * suggestions of its source, or without suggestions if the source failed, did not answer before its timeout, or could
+ * not be queried because too many queries were already pending.
+ * Queries for a token are interrupted when it is cancelled and, by default, when a newer token is received.
+ * <p>
+ * Note: The listener is called on the thread that finished the query, i.e. a thread of the executor when the source
+ * answers, the thread of the handler when the query times out, or the thread that received the token when the query
+ * could not be queued. It must therefore be thread safe, and post any work touching views to the UI thread (the
+ * {@link com.linkedin.android.spyglass.ui.RichEditorView} already does this when receiving suggestions).
+ */
+public class SuggestionSourceOrchestrator implements QueryTokenReceiver {
+
+    private final List<SourceEntry> mSources;
+    private final Executor mExecutor;
+    private final Handler mHandler;
+    private final boolean mCancelSupersededQueries;
+    @Nullable private final SuggestionRoutingTable mRoutingTable;
+
+    @Nullable private volatile SuggestionsResultListener mResultListener;
+
+    // Queries that have not reported their results yet, for every token
+    private final Map<QueryToken, List<SourceQuery>> mPendingQueries = new HashMap<>();
+
+    private SuggestionSourceOrchestrator(final @NonNull List<SourceEntry> sources,
+                                         final @NonNull Executor executor,
+                                         final @NonNull Handler handler,
+                                         final boolean cancelSupersededQueries,
+                                         final @Nullable SuggestionRoutingTable routingTable) {
+        mSources = sources;
+        mExecutor = executor;
+        mHandler = handler;
+        mCancelSupersededQueries = cancelSupersededQueries;
+        mRoutingTable = routingTable;
+    }
+
+    // --------------------------------------------------
+    // Public Methods
+    // --------------------------------------------------
+
+    /**
+     * Sets the listener to report the suggestions of every source to. It may be called from any thread (see the
+     * class documentation).
+     *
+     * @param resultListener the {@link SuggestionsResultListener} to use
+     */
+    public void setSuggestionsResultListener(final @Nullable SuggestionsResultListener resultListener) {
+        mResultListener = resultListener;
+    }
+
+    /**
+     * @return the number of source queries that have not reported their results yet
+     */
+    public int getPendingQueryCount() {
+        synchronized (mPendingQueries) {
+            int count = 0;
+            for (List<SourceQuery> queries : mPendingQueries.values()) {
+                count += queries.size();
+            }
+            return count;
+        }
+    }
+
+    // --------------------------------------------------
+    // QueryTokenReceiver Implementation
+    // --------------------------------------------------
+
+    /**
+     * {@inheritDoc}
+     */
+    @NonNull
+    @Override
+    public List<String> onQueryReceived(final @NonNull QueryToken queryToken) {
+        if (mCancelSupersededQueries) {
+            cancelAllExcept(queryToken);
+        }
+
+        // Register every query before starting any, so that the buckets are all known before results are reported
+        List<String> buckets = new ArrayList<>();
+        List<SourceQuery> queries = new ArrayList<>();
+        for (SourceEntry entry : mSources) {
+            if (isRouted(queryToken, entry.mSource) && entry.mSource.canHandle(queryToken)) {
+                buckets.add(entry.mSource.getBucket());
+                queries.add(new SourceQuery(queryToken, entry));
+            }
+        }
+        synchronized (mPendingQueries) {
+            List<SourceQuery> pending = mPendingQueries.get(queryToken);
+            if (pending == null) {
+                mPendingQueries.put(queryToken, new ArrayList<>(queries));
+            } else {
+                pending.addAll(queries);
+            }
+        }
+
+        for (SourceQuery query : queries) {
+            query.start();
+        }
+        return buckets;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onQueryCancelled(final @NonNull QueryToken queryToken) {
+        List<SourceQuery> queries;
+        synchronized (mPendingQueries) {
+            queries = mPendingQueries.remove(queryToken);
+        }
+        if (queries != null) {
+            for (SourceQuery query : queries) {
+                query.cancel();
+            }
+        }
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private boolean isRouted(final @NonNull QueryToken queryToken, final @NonNull SuggestionSource source) {
+        return mRoutingTable == null || mRoutingTable.isRouted(queryToken, source.getBucket());
+    }
+
+    private void cancelAllExcept(final @NonNull QueryToken queryToken) {
+        List<QueryToken> superseded = new ArrayList<>();
+        synchronized (mPendingQueries) {
+            for (QueryToken pending : mPendingQueries.keySet()) {
+                if (!pending.equals(queryToken)) {
+                    superseded.add(pending);
+                }
+            }
+        }
+        for (QueryToken token : superseded) {
+            onQueryCancelled(token);
+        }
+    }
+
+    /**
+     * Removes a finished query from the pending queries.
+     *
+     * @return true if the query was still pending (i.e. its results must be reported)
+     */
+    private boolean removePending(final @NonNull SourceQuery query) {
+        synchronized (mPendingQueries) {
+            List<SourceQuery> queries = mPendingQueries.get(query.mQueryToken);
+            if (queries == null || !queries.remove(query)) {
+                return false;
+            }
+            if (queries.isEmpty()) {
+                mPendingQueries.remove(query.mQueryToken);
+            }
+            return true;
+        }
+    }
+
+    // --------------------------------------------------
+    // SourceQuery
+    // --------------------------------------------------
+
+    private static class SourceEntry {
+
+        private final SuggestionSource mSource;
+        private final long mTimeoutMillis;
+
+        SourceEntry(final @NonNull SuggestionSource source, final long timeoutMillis) {
+            mSource = source;
+            mTimeoutMillis = timeoutMillis;
+        }
+    }
+
+    /**
+     * Query of a single source for a single token. Reports its bucket at most once, whether it finishes, fails or times
+     * out, and never reports it if it is cancelled.
+     */
+    private class SourceQuery implements Runnable {
+
+        private final QueryToken mQueryToken;
+        private final SourceEntry mEntry;
+        private final AtomicBoolean mFinished = new AtomicBoolean(false);
+        private final FutureTask<Void> mTask;
+
+        SourceQuery(final @NonNull QueryToken queryToken, final @NonNull SourceEntry entry) {
+            mQueryToken = queryToken;
+            mEntry = entry;
+            mTask = new FutureTask<>(() -> {
+                List<? extends Suggestible> suggestions;
+                try {
+                    suggestions = mEntry.mSource.getSuggestions(mQueryToken);
+                } catch (InterruptedException e) {
+                    // Cancelled or timed out, which is reported separately
+                    return null;
+                } catch (Exception e) {
+                    suggestions = Collections.emptyList();
+                }
+                finish(suggestions);
+                return null;
+            });
+        }
+
+        void start() {
+            if (mEntry.mTimeoutMillis > 0) {
+                mHandler.postAtTime(this, this, SystemClock.uptimeMillis() + mEntry.mTimeoutMillis);
+            }
+            try {
+                mExecutor.execute(mTask);
+            } catch (RejectedExecutionException e) {
+                // Too many queries are pending, so report the bucket without suggestions rather than queueing more
+                finish(Collections.<Suggestible>emptyList());
+            }
+        }
+
+        void cancel() {
+            if (mFinished.compareAndSet(false, true)) {
+                mHandler.removeCallbacksAndMessages(this);
+                mTask.cancel(true);
+            }
+        }
+
+        /**
+         * Called when the timeout expires.
+         */
+        @Override
+        public void run() {
+            if (mTask.cancel(true)) {
+                finish(Collections.<Suggestible>emptyList());
+            }
+        }
+
+        private void finish(final @NonNull List<? extends Suggestible> suggestions) {
+            if (!mFinished.compareAndSet(false, true)) {
+                return;
+            }
+            mHandler.removeCallbacksAndMessages(this);
+            SuggestionsResultListener listener = mResultListener;
+            if (removePending(this) && listener != null) {
+                listener.onReceiveSuggestionsResult(new SuggestionsResult(mQueryToken, suggestions),
+                        mEntry.mSource.getBucket());
+            }
+        }
+    }
+
+    // --------------------------------------------------
+    // Builder
+    // --------------------------------------------------
+
+    public static class Builder {
+
+        // Sources added so far
+        private final List<SourceEntry> sources = new ArrayList<>();
+
+        // Default values for configuration
+        private long defaultTimeoutMillis = 5000;
+        private int maxConcurrentQueries = 4;
+        private int maxQueuedQueries = 16;
+        private Executor executor = null;
+        private Handler handler = null;
+        private boolean cancelSupersededQueries = true;
+        private SuggestionRoutingTable routingTable = null;
+
+        /**
+         * Adds a source, with the default timeout.
+         */
+        @NonNull
+        public Builder addSource(@NonNull SuggestionSource source) {
+            return addSource(source, -1);
+        }
+
+        /**
+         * Adds a source with its own timeout, after which its bucket is reported without suggestions (0 for none).
+         */
+        @NonNull
+        public Builder addSource(@NonNull SuggestionSource source, long timeoutMillis) {
+            this.sources.add(new SourceEntry(source, timeoutMillis));
+            return this;
+        }
+
+        @NonNull
+        public Builder setDefaultTimeoutMillis(long defaultTimeoutMillis) {
+            this.defaultTimeoutMillis = defaultTimeoutMillis;
+            return this;
+        }
+
+        /**
+         * Sets the number of sources that can be queried at the same time by the default executor.
+         */
+        @NonNull
+        public Builder setMaxConcurrentQueries(int maxConcurrentQueries) {
+            this.maxConcurrentQueries = maxConcurrentQueries;
+            return this;
+        }
+
+        /**
+         * Sets the number of queries that can wait for a thread of the default executor. Queries beyond that are not
+         * run, and their buckets are reported without suggestions.
+         */
+        @NonNull
+        public Builder setMaxQueuedQueries(int maxQueuedQueries) {
+            this.maxQueuedQueries = maxQueuedQueries;
+            return this;
+        }
+
+        /**
+         * Sets the executor to query the sources on, instead of the default bounded executor.
+         */
+        @NonNull
+        public Builder setExecutor(@NonNull Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the handler used to time out queries (defaults to the main thread).
+         */
+        @NonNull
+        public Builder setHandler(@NonNull Handler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        @NonNull
+        public Builder setCancelSupersededQueries(boolean cancelSupersededQueries) {
+            this.cancelSupersededQueries = cancelSupersededQueries;
+            return this;
+        }
+
+        /**
+         * Sets the table deciding which sources (by their bucket) are queried for the tokens of each explicit
+         * character, and for implicit tokens. Sources are only queried if they are routed for a token and can handle it.
+         */
+        @NonNull
+        public Builder setRoutingTable(@Nullable SuggestionRoutingTable routingTable) {
+            this.routingTable = routingTable;
+            return this;
+        }
+
+        @NonNull
+        public SuggestionSourceOrchestrator build() {
+            List<SourceEntry> entries = new ArrayList<>(sources.size());
+            for (SourceEntry entry : sources) {
+                long timeoutMillis = (entry.mTimeoutMillis >= 0) ? entry.mTimeoutMillis : defaultTimeoutMillis;
+                entries.add(new SourceEntry(entry.mSource, timeoutMillis));
+            }
+            Executor queryExecutor = executor;
+            if (queryExecutor == null) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(maxConcurrentQueries, maxConcurrentQueries,
+                        30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(maxQueuedQueries));
+                pool.allowCoreThreadTimeOut(true);
+                queryExecutor = pool;
+            }
+            Handler timeoutHandler = (handler != null) ? handler : new Handler(Looper.getMainLooper());
+            return new SuggestionSourceOrchestrator(Collections.unmodifiableList(entries), queryExecutor,
+                    timeoutHandler, cancelSupersededQueries, routingTable);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.interfaces;
+
+import androidx.annotation.NonNull;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+/**
+ * Interface used to request the next page of suggestions for a bucket that streams its results (see
+ * {@link StreamingSuggestionsResultListener}).
+ */
+public interface OnLoadMoreSuggestionsListener {
+
+    /**
+     * Called when the user scrolls near the end of the suggestions, for every bucket that reported that it can return
+     * more suggestions for the current query. The next page should be reported using the
+     * {@link StreamingSuggestionsResultListener} callbacks.
+     *
+     * @param queryToken the {@link QueryToken} to load more suggestions for
+     * @param bucket     the bucket to load more suggestions for
+     * @param offset     the number of suggestions the bucket has already returned
+     */
+    void onLoadMoreSuggestions(@NonNull final QueryToken queryToken, @NonNull final String bucket, final int offset);
+}
@@ -0,0 +1,54 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.interfaces;
+
+import androidx.annotation.NonNull;
+import com.linkedin.android.spyglass.suggestions.SuggestionsAdapter;
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
+
+/**
+ * Interface used to listen for the results of a mention suggestion query in chunks, so that the first suggestions can be
+ * displayed before all of them have been fetched.
+ * <p>
+ * For every bucket, the {@link QueryTokenReceiver} calls {@link #onReceiveSuggestionsChunk(SuggestionsResult, String)}
+ * any number of times, and then {@link #onSuggestionsResultComplete(QueryToken, String, boolean)} once. If the bucket
+ * can return more suggestions, it is asked for the next page with an {@link OnLoadMoreSuggestionsListener} when the user
+ * scrolls near the end of the suggestions, and reports it the same way.
+ */
+public interface StreamingSuggestionsResultListener extends SuggestionsResultListener {
+
+    /**
+     * Callback to append a chunk of suggestions to the result of a bucket, so that they can be added to a
+     * {@link SuggestionsAdapter} and rendered immediately.
+     *
+     * @param chunk  a {@link SuggestionsResult} containing the next suggestions for the query
+     * @param bucket a string representing the type of mention (used for grouping in the {@link SuggestionsAdapter})
+     */
+    void onReceiveSuggestionsChunk(@NonNull final SuggestionsResult chunk, @NonNull final String bucket);
+
+    /**
+     * Callback to mark the result of a bucket as complete, once all of its chunks have been received.
+     *
+     * @param queryToken the {@link QueryToken} the suggestions were generated for
+     * @param bucket     a string representing the type of mention
+     * @param hasMore    true if the bucket can return another page of suggestions
+     */
+    void onSuggestionsResultComplete(@NonNull final QueryToken queryToken,
+                                     @NonNull final String bucket,
+                                     final boolean hasMore);
+}
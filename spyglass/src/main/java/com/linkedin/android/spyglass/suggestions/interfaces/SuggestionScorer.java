@@ -0,0 +1,42 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.interfaces;
+
+import androidx.annotation.NonNull;
+
+/**
+ * Interface used by the {@link com.linkedin.android.spyglass.suggestions.impl.RankedSuggestionsListBuilder} to rank
+ * the suggestions from every bucket against each other.
+ */
+public interface SuggestionScorer {
+
+    /**
+     * Scores a suggestion. Suggestions with higher scores are displayed first. Since this is called for every suggestion
+     * of every bucket, it should be cheap.
+     *
+     * @param suggestion the {@link Suggestible} to score
+     * @param bucket     the bucket the suggestion was returned in
+     * @param position   the position of the suggestion in the results of its bucket
+     * @param keywords   the keywords of the current query
+     *
+     * @return the score of the suggestion
+     */
+    double score(final @NonNull Suggestible suggestion,
+                 final @NonNull String bucket,
+                 final int position,
+                 final @NonNull String keywords);
+
+}
@@ -0,0 +1,64 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.interfaces;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+import java.util.List;
+
+/**
+ * Interface for a single source of suggestions (i.e. a local database or a network service), queried by the
+ * {@link com.linkedin.android.spyglass.suggestions.impl.SuggestionSourceOrchestrator}. The suggestions of each source
+ * are placed into their own bucket.
+ */
+public interface SuggestionSource {
+
+    /**
+     * @return the bucket to place the suggestions of this source into (must be unique across sources)
+     */
+    @NonNull
+    String getBucket();
+
+    /**
+     * Determines whether this source should be queried for the given {@link QueryToken}, i.e. to only query a source
+     * for explicit mentions.
+     *
+     * @param queryToken the {@link QueryToken} to check
+     *
+     * @return true if this source can suggest mentions for the token
+     */
+    default boolean canHandle(final @NonNull QueryToken queryToken) {
+        return true;
+    }
+
+    /**
+     * Fetches the suggestions for the given {@link QueryToken}. This is called on a background thread and may block.
+     * If the query is cancelled or times out, the calling thread is interrupted, so blocking calls should be
+     * interruptible.
+     *
+     * @param queryToken the {@link QueryToken} to fetch suggestions for
+     *
+     * @return the suggestions for the token
+     *
+     * @throws Exception if the suggestions could not be fetched (the bucket is then reported without suggestions)
+     */
+    @NonNull
+    @WorkerThread
+    List<? extends Suggestible> getSuggestions(final @NonNull QueryToken queryToken) throws Exception;
+}
@@ -0,0 +1,195 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization;
+
+import android.text.Spanned;
+import android.text.TextUtils;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+
+/**
+ * Class representing the token around the cursor, as found by a single pass of a {@link Tokenizer} (see
+ * {@link Tokenizer#findTokenMatch(Spanned, int, TokenMatch)}).
+ * <p>
+ * Instances are meant to be reused between keystrokes. Note that {@link #getToken()} and {@link #getKeywords()} return
+ * views over the tokenized text rather than copies, so they are only valid until the text or the match changes. Use
+ * {@link #getTokenString()} or {@link #toQueryToken()} to get a value that can be kept.
+ */
+public class TokenMatch {
+
+    @NonNull private CharSequence mText = "";
+    private int mStart;
+    private int mEnd;
+    private char mExplicitChar;
+    private boolean mValid;
+
+    private final TextWindow mToken = new TextWindow();
+    private final TextWindow mKeywords = new TextWindow();
+
+    /**
+     * Updates the match to represent the token between start and end in the given text.
+     *
+     * @param text         the text that was tokenized
+     * @param start        index of the first character in the token
+     * @param end          index after the last character in the token
+     * @param explicitChar the explicit character at the start of the token, or the null character if there is none
+     * @param valid        true if the token is a valid mention (see {@link Tokenizer#isValidMention(Spanned, int, int)})
+     */
+    public void set(final @NonNull CharSequence text, final int start, final int end, final char explicitChar,
+                    final boolean valid) {
+        if (start < 0 || start > end || end > text.length()) {
+            clear();
+            return;
+        }
+        mText = text;
+        mStart = start;
+        mEnd = end;
+        mExplicitChar = explicitChar;
+        mValid = valid;
+        mToken.set(text, start, end);
+        mKeywords.set(text, (explicitChar != 0) ? start + 1 : start, end);
+    }
+
+    /**
+     * Resets the match to an empty, invalid token.
+     */
+    public void clear() {
+        mText = "";
+        mStart = 0;
+        mEnd = 0;
+        mExplicitChar = 0;
+        mValid = false;
+        mToken.set(mText, 0, 0);
+        mKeywords.set(mText, 0, 0);
+    }
+
+    /**
+     * @return index of the first character in the token
+     */
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * @return index after the last character in the token
+     */
+    public int getEnd() {
+        return mEnd;
+    }
+
+    /**
+     * @return the explicit character at the start of the token, or the null character if the token is implicit
+     */
+    public char getExplicitChar() {
+        return mExplicitChar;
+    }
+
+    /**
+     * @return true if the token starts with an explicit character
+     */
+    public boolean isExplicit() {
+        return mExplicitChar != 0;
+    }
+
+    /**
+     * @return true if the token is a valid mention and can be used to query for suggestions
+     */
+    public boolean isValid() {
+        return mValid;
+    }
+
+    /**
+     * @return a view of the token as typed by the user (valid until the text or the match changes)
+     */
+    @NonNull
+    public CharSequence getToken() {
+        return mToken;
+    }
+
+    /**
+     * @return a view of the token without its explicit character, if any (valid until the text or the match changes)
+     */
+    @NonNull
+    public CharSequence getKeywords() {
+        return mKeywords;
+    }
+
+    /**
+     * @return a copy of the token as typed by the user
+     */
+    @NonNull
+    public String getTokenString() {
+        return mToken.toString();
+    }
+
+    /**
+     * @return the {@link QueryToken} corresponding to this match if it is valid, otherwise null
+     */
+    @Nullable
+    public QueryToken toQueryToken() {
+        if (!mValid) {
+            return null;
+        }
+        String tokenString = getTokenString();
+        return isExplicit() ? new QueryToken(tokenString, mExplicitChar) : new QueryToken(tokenString);
+    }
+
+    /**
+     * Lightweight {@link CharSequence} over a region of another {@link CharSequence}, used to expose the token without
+     * copying it.
+     */
+    private static class TextWindow implements CharSequence {
+
+        @NonNull private CharSequence mSource = "";
+        private int mOffset;
+        private int mLength;
+
+        void set(final @NonNull CharSequence source, final int start, final int end) {
+            mSource = source;
+            mOffset = start;
+            mLength = end - start;
+        }
+
+        @Override
+        public int length() {
+            return mLength;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= mLength) {
+                throw new IndexOutOfBoundsException("index=" + index + ", length=" + mLength);
+            }
+            return mSource.charAt(mOffset + index);
+        }
+
+        @NonNull
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || start > end || end > mLength) {
+                throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + mLength);
+            }
+            return mSource.subSequence(mOffset + start, mOffset + end);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return TextUtils.substring(mSource, mOffset, mOffset + mLength);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization;
+
+import android.text.Spanned;
+import android.text.TextWatcher;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
+
+/**
+ * Stateful wrapper around a {@link Tokenizer} that keeps the token around the cursor up to date as the text is edited.
+ * <p>
+ * The session is fed the changes to the text (see {@link #beforeTextChanged(CharSequence, int, int, int)} and
+ * {@link #onTextChanged(CharSequence, int, int, int)}). When the change is a single character typed or deleted at the
+ * end of the current token, and the character is neither a word-breaking nor an explicit character, the bounds of the
+ * token are adjusted in place. The explicit character and the mentions around the token cannot change in that case, so
+ * only the validity of the (short) token is checked again. Any other change causes the token to be found again using
+ * {@link Tokenizer#findTokenMatch(Spanned, int, TokenMatch)} the next time it is requested.
+ * <p>
+ * Note: Changes to the spans in the text that are not accompanied by a change to the text itself are not seen by the
+ * session, so {@link #invalidate()} must be called after them.
+ */
+public class TokenizerSession {
+
+    private final Tokenizer mTokenizer;
+    private final TokenMatch mMatch = new TokenMatch();
+
+    // Text, length and cursor position that mMatch was computed for (only meaningful if mUpToDate)
+    @Nullable private CharSequence mText;
+    private int mLength;
+    private int mCursor;
+    private boolean mUpToDate = false;
+
+    // True if the bounds of mMatch were updated incrementally, but its validity has not been checked yet
+    private boolean mNeedsValidation = false;
+
+    // Character about to be removed by the current change, if a single character is being removed
+    private char mRemovedChar;
+
+    // Number of times the token was found from scratch, rather than updated incrementally
+    private int mFullTokenizationCount = 0;
+
+    public TokenizerSession(final @NonNull Tokenizer tokenizer) {
+        mTokenizer = tokenizer;
+    }
+
+    /**
+     * @return the {@link Tokenizer} used by this session
+     */
+    @NonNull
+    public Tokenizer getTokenizer() {
+        return mTokenizer;
+    }
+
+    /**
+     * Should be called whenever the text is about to change. See
+     * {@link TextWatcher#beforeTextChanged(CharSequence, int, int, int)}.
+     *
+     * @param text  the text before the change
+     * @param start index of the start of the change
+     * @param count number of characters that are about to be replaced
+     * @param after number of characters that will replace them
+     */
+    public void beforeTextChanged(final @NonNull CharSequence text, final int start, final int count,
+                                  final int after) {
+        mRemovedChar = (count == 1 && start >= 0 && start < text.length()) ? text.charAt(start) : 0;
+    }
+
+    /**
+     * Should be called whenever the text has changed. See {@link TextWatcher#onTextChanged(CharSequence, int, int, int)}.
+     *
+     * @param text   the text after the change
+     * @param start  index of the start of the change
+     * @param before number of characters that were replaced
+     * @param count  number of characters that replaced them
+     */
+    public void onTextChanged(final @NonNull CharSequence text, final int start, final int before, final int count) {
+        if (!mUpToDate || text != mText || text.length() != mLength - before + count) {
+            invalidate();
+            return;
+        }
+
+        final int tokenStart = mMatch.getStart();
+        final int tokenEnd = mMatch.getEnd();
+        if (before == 0 && count == 1 && start == mCursor && mCursor == tokenEnd
+                && isPlainChar(text.charAt(start))) {
+            // Character typed at the end of the token
+            updateBounds(text, tokenStart, tokenEnd + 1);
+        } else if (before == 1 && count == 0 && start == mCursor - 1 && mCursor == tokenEnd && start > tokenStart
+                && isPlainChar(mRemovedChar)) {
+            // Last character of the token deleted (without deleting the whole token)
+            updateBounds(text, tokenStart, tokenEnd - 1);
+        } else {
+            invalidate();
+        }
+    }
+
+    /**
+     * Forgets the current token, so that it is found from scratch the next time it is requested.
+     */
+    public void invalidate() {
+        mUpToDate = false;
+        mNeedsValidation = false;
+        mText = null;
+    }
+
+    /**
+     * Returns the token around the cursor. If the text has only been changed by a single character at the end of the
+     * token since the last call, this does not need to tokenize the text again.
+     *
+     * @param text   the current text
+     * @param cursor position of the cursor in text
+     *
+     * @return the token around the cursor (reused by this session, so only valid until the next change)
+     */
+    @NonNull
+    public TokenMatch getTokenMatch(final @NonNull Spanned text, final int cursor) {
+        if (mUpToDate && text == mText && text.length() == mLength && cursor == mCursor) {
+            if (mNeedsValidation) {
+                int start = mMatch.getStart();
+                int end = mMatch.getEnd();
+                mMatch.set(text, start, end, mMatch.getExplicitChar(), mTokenizer.isValidMention(text, start, end));
+                mNeedsValidation = false;
+            }
+            return mMatch;
+        }
+
+        mFullTokenizationCount++;
+        mTokenizer.findTokenMatch(text, cursor, mMatch);
+        mText = text;
+        mLength = text.length();
+        mCursor = cursor;
+        mUpToDate = true;
+        mNeedsValidation = false;
+        return mMatch;
+    }
+
+    /**
+     * @return the number of times the token had to be found from scratch (i.e. not updated incrementally)
+     */
+    public int getFullTokenizationCount() {
+        return mFullTokenizationCount;
+    }
+
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    private void updateBounds(final @NonNull CharSequence text, final int start, final int end) {
+        mMatch.set(text, start, end, mMatch.getExplicitChar(), false);
+        mLength = text.length();
+        mCursor = end;
+        mNeedsValidation = true;
+    }
+
+    /**
+     * Returns true if adding or removing the given character at the end of a token only changes the end of the token.
+     */
+    private boolean isPlainChar(final char c) {
+        return c != 0
+                && !Character.isSurrogate(c)
+                && !mTokenizer.isWordBreakingChar(c)
+                && !mTokenizer.isExplicitChar(c);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import androidx.annotation.NonNull;
+
+import java.util.BitSet;
+
+/**
+ * Immutable set of Unicode code points with constant-time lookup, used by the {@link WordTokenizerConfig} to classify
+ * characters. Instantiate using the {@link CodePointSet.Builder} class.
+ * <p>
+ * The set is stored as a two-level bitmap: code points are grouped into pages of 256, and pages that are entirely empty
+ * or entirely full are shared, so large sets (i.e. all Unicode whitespace and punctuation) stay small.
+ */
+public final class CodePointSet {
+
+    private static final int PAGE_SHIFT = 8;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int WORDS_PER_PAGE = PAGE_SIZE / Long.SIZE;
+
+    private static final long[] EMPTY_PAGE = new long[WORDS_PER_PAGE];
+    private static final long[] FULL_PAGE = new long[WORDS_PER_PAGE];
+
+    static {
+        for (int i = 0; i < WORDS_PER_PAGE; i++) {
+            FULL_PAGE[i] = -1L;
+        }
+    }
+
+    // Pages indexed by (code point >> PAGE_SHIFT), only as many as needed to hold the largest code point in the set
+    private final long[][] mPages;
+
+    private CodePointSet(final @NonNull long[][] pages) {
+        mPages = pages;
+    }
+
+    /**
+     * Returns a set containing all of the code points in the given {@link CharSequence}. Surrogate pairs are added as a
+     * single supplementary code point.
+     *
+     * @param chars the characters to add to the set
+     *
+     * @return a new {@link CodePointSet}
+     */
+    @NonNull
+    public static CodePointSet of(final @NonNull CharSequence chars) {
+        return new Builder().addAll(chars).build();
+    }
+
+    /**
+     * Returns true if the given code point is in this set. Note that a char can be passed directly to check a character
+     * in the Basic Multilingual Plane.
+     *
+     * @param codePoint the code point to check
+     *
+     * @return true if the code point is in this set
+     */
+    public boolean contains(final int codePoint) {
+        // Note: Negative values become very large when shifted without sign extension, so they fail the bounds check
+        int page = codePoint >>> PAGE_SHIFT;
+        if (page >= mPages.length) {
+            return false;
+        }
+        return (mPages[page][(codePoint & (PAGE_SIZE - 1)) >>> 6] & (1L << codePoint)) != 0;
+    }
+
+    /**
+     * @return true if there are no code points in this set
+     */
+    public boolean isEmpty() {
+        return mPages.length == 0;
+    }
+
+    public static class Builder {
+
+        private final BitSet codePoints = new BitSet();
+
+        /**
+         * Adds a single code point to the set.
+         *
+         * @param codePoint a valid Unicode code point
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder add(final int codePoint) {
+            if (!Character.isValidCodePoint(codePoint)) {
+                throw new IllegalArgumentException("Invalid code point: " + codePoint);
+            }
+            codePoints.set(codePoint);
+            return this;
+        }
+
+        /**
+         * Adds all of the code points in the given {@link CharSequence} to the set. Surrogate pairs are added as a
+         * single supplementary code point.
+         *
+         * @param chars the characters to add
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder addAll(final @NonNull CharSequence chars) {
+            int i = 0;
+            while (i < chars.length()) {
+                int codePoint = Character.codePointAt(chars, i);
+                codePoints.set(codePoint);
+                i += Character.charCount(codePoint);
+            }
+            return this;
+        }
+
+        /**
+         * Adds all of the code points in another {@link CodePointSet} to the set.
+         *
+         * @param set the set to add
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder addAll(final @NonNull CodePointSet set) {
+            for (int page = 0; page < set.mPages.length; page++) {
+                long[] words = set.mPages[page];
+                if (words == EMPTY_PAGE) {
+                    continue;
+                }
+                for (int word = 0; word < WORDS_PER_PAGE; word++) {
+                    long bits = words[word];
+                    while (bits != 0) {
+                        int bit = Long.numberOfTrailingZeros(bits);
+                        codePoints.set((page << PAGE_SHIFT) + word * Long.SIZE + bit);
+                        bits &= bits - 1;
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds all of the code points between first and last (inclusive) to the set.
+         *
+         * @param first the first code point in the range
+         * @param last  the last code point in the range
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder addRange(final int first, final int last) {
+            if (!Character.isValidCodePoint(first) || !Character.isValidCodePoint(last) || first > last) {
+                throw new IllegalArgumentException("Invalid code point range: " + first + " to " + last);
+            }
+            codePoints.set(first, last + 1);
+            return this;
+        }
+
+        /**
+         * Adds all of the code points of the given general category to the set, i.e. {@link Character#SPACE_SEPARATOR}
+         * or {@link Character#OTHER_PUNCTUATION}.
+         *
+         * @param type a general category as returned by {@link Character#getType(int)}
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder addType(final int type) {
+            for (int codePoint = Character.MIN_CODE_POINT; codePoint <= Character.MAX_CODE_POINT; codePoint++) {
+                if (Character.getType(codePoint) == type) {
+                    codePoints.set(codePoint);
+                }
+            }
+            return this;
+        }
+
+        @NonNull
+        public CodePointSet build() {
+            int numPages = (codePoints.length() + PAGE_SIZE - 1) >>> PAGE_SHIFT;
+            long[][] pages = new long[numPages][];
+            for (int page = 0; page < numPages; page++) {
+                int first = page << PAGE_SHIFT;
+                int cardinality = codePoints.get(first, first + PAGE_SIZE).cardinality();
+                if (cardinality == 0) {
+                    pages[page] = EMPTY_PAGE;
+                } else if (cardinality == PAGE_SIZE) {
+                    pages[page] = FULL_PAGE;
+                } else {
+                    long[] words = new long[WORDS_PER_PAGE];
+                    int codePoint = codePoints.nextSetBit(first);
+                    while (codePoint >= 0 && codePoint < first + PAGE_SIZE) {
+                        words[(codePoint - first) >>> 6] |= 1L << codePoint;
+                        codePoint = codePoints.nextSetBit(codePoint + 1);
+                    }
+                    pages[page] = words;
+                }
+            }
+            return new CodePointSet(pages);
+        }
+    }
+}
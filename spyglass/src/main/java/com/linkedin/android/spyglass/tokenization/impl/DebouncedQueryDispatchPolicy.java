@@ -0,0 +1,189 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryDispatchPolicy;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
+
+import java.util.ArrayDeque;
+
+/**
+ * {@link QueryDispatchPolicy} that reduces the number of queries sent while the user is typing. Instantiate using the
+ * {@link DebouncedQueryDispatchPolicy.Builder} class.
+ * <p>
+ * Tokens are held for a debounce window before being sent to the receiver. In latest-wins mode (the default), a token
+ * that is still waiting when a newer token arrives is dropped and the window starts again, so only the token the user
+ * paused on is queried. Otherwise, every token is sent once its own window has passed. Tokens identical to the last one
+ * sent can also be suppressed.
+ * <p>
+ * Note: This class is meant to be used from the main thread only.
+ */
+public class DebouncedQueryDispatchPolicy implements QueryDispatchPolicy {
+
+    private final long mDebounceMillis;
+    private final boolean mSuppressDuplicates;
+    private final boolean mLatestWins;
+    private final Handler mHandler;
+
+    // Tokens waiting for their debounce window to pass, oldest first
+    private final ArrayDeque<PendingDispatch> mPendingDispatches = new ArrayDeque<>();
+
+    // Last token that was sent to a receiver (used to suppress duplicates)
+    @Nullable private QueryToken mLastDispatchedToken;
+
+    private DebouncedQueryDispatchPolicy(final long debounceMillis,
+                                         final boolean suppressDuplicates,
+                                         final boolean latestWins,
+                                         final @NonNull Handler handler) {
+        mDebounceMillis = debounceMillis;
+        mSuppressDuplicates = suppressDuplicates;
+        mLatestWins = latestWins;
+        mHandler = handler;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onQueryToken(final @NonNull QueryToken queryToken, final @NonNull QueryTokenReceiver receiver) {
+        if (mLatestWins) {
+            // Drop any token superseded by this one
+            cancelPendingDispatches();
+        } else if (mSuppressDuplicates) {
+            // Do not queue the same token twice in a row
+            PendingDispatch last = mPendingDispatches.peekLast();
+            if (last != null && queryToken.equals(last.mQueryToken)) {
+                return;
+            }
+        }
+
+        PendingDispatch dispatch = new PendingDispatch(queryToken, receiver);
+        if (mDebounceMillis <= 0) {
+            dispatch.run();
+        } else {
+            mPendingDispatches.addLast(dispatch);
+            mHandler.postDelayed(dispatch, mDebounceMillis);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        cancelPendingDispatches();
+        mLastDispatchedToken = null;
+    }
+
+    /**
+     * @return the number of tokens waiting to be sent to a receiver
+     */
+    public int getPendingCount() {
+        return mPendingDispatches.size();
+    }
+
+    private void cancelPendingDispatches() {
+        for (PendingDispatch dispatch : mPendingDispatches) {
+            mHandler.removeCallbacks(dispatch);
+        }
+        mPendingDispatches.clear();
+    }
+
+    private class PendingDispatch implements Runnable {
+
+        private final QueryToken mQueryToken;
+        private final QueryTokenReceiver mReceiver;
+
+        PendingDispatch(final @NonNull QueryToken queryToken, final @NonNull QueryTokenReceiver receiver) {
+            mQueryToken = queryToken;
+            mReceiver = receiver;
+        }
+
+        @Override
+        public void run() {
+            mPendingDispatches.remove(this);
+            if (mSuppressDuplicates && mQueryToken.equals(mLastDispatchedToken)) {
+                return;
+            }
+            mLastDispatchedToken = mQueryToken;
+            mReceiver.onQueryReceived(mQueryToken);
+        }
+    }
+
+    public static class Builder {
+
+        // Default values for configuration
+        private long debounceMillis = 150;
+        private boolean suppressDuplicates = true;
+        private boolean latestWins = true;
+        private Handler handler = null;
+
+        /**
+         * @param debounceMillis how long to hold a token before sending it (0 to send tokens immediately)
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setDebounceMillis(long debounceMillis) {
+            this.debounceMillis = debounceMillis;
+            return this;
+        }
+
+        /**
+         * @param suppressDuplicates true to avoid sending a token identical to the last token sent
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setSuppressDuplicates(boolean suppressDuplicates) {
+            this.suppressDuplicates = suppressDuplicates;
+            return this;
+        }
+
+        /**
+         * @param latestWins true to drop tokens that are superseded before their debounce window has passed
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setLatestWins(boolean latestWins) {
+            this.latestWins = latestWins;
+            return this;
+        }
+
+        /**
+         * @param handler the {@link Handler} used to delay tokens (defaults to a handler on the main thread)
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setHandler(@NonNull Handler handler) {
+            this.handler = handler;
+            return this;
+        }
+
+        @NonNull
+        public DebouncedQueryDispatchPolicy build() {
+            Handler dispatchHandler = (handler != null) ? handler : new Handler(Looper.getMainLooper());
+            return new DebouncedQueryDispatchPolicy(debounceMillis, suppressDuplicates, latestWins, dispatchHandler);
+        }
+    }
+}
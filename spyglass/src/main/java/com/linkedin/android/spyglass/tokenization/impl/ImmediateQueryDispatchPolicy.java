@@ -0,0 +1,43 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization.impl;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryDispatchPolicy;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
+
+/**
+ * Default {@link QueryDispatchPolicy}, which sends every token to the receiver as soon as it is found.
+ */
+public class ImmediateQueryDispatchPolicy implements QueryDispatchPolicy {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onQueryToken(final @NonNull QueryToken queryToken, final @NonNull QueryTokenReceiver receiver) {
+        receiver.onQueryReceived(queryToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reset() {
+        // Nothing is ever pending
+    }
+}
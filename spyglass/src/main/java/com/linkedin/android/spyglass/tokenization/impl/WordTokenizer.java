@@ -14,12 +14,12 @@
 
 package com.linkedin.android.spyglass.tokenization.impl;
 
-import android.text.SpannableStringBuilder;
 import android.text.Spanned;
 import android.text.TextUtils;
 import android.widget.EditText;
 import androidx.annotation.NonNull;
 import com.linkedin.android.spyglass.mentions.MentionSpan;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
 import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
 
 /**
@@ -46,62 +46,7 @@ public class WordTokenizer implements Tokenizer {
      */
     @Override
     public int findTokenStart(final @NonNull Spanned text, final int cursor) {
-        int start = getSearchStartIndex(text, cursor);
-        int i = cursor;
-
-        // If it is explicit, return the index of the first explicit character
-        if (isExplicit(text, cursor)) {
-            i--;
-            while (i >= start) {
-                char currentChar = text.charAt(i);
-                if (isExplicitChar(currentChar)) {
-                    if (i == 0 || isWordBreakingChar(text.charAt(i - 1))) {
-                        return i;
-                    }
-                }
-                i--;
-            }
-            // Could not find explicit character before the cursor
-            // Note: This case should never happen (means that isExplicit
-            // returned true when it should have been false)
-            return -1;
-
-        } else {
-
-            // For implicit tokens, we need to go back a certain number of words to find the start
-            // of the token (with the max number of words to go back defined in the config)
-            int maxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
-
-            // Go back to the start of the word that the cursor is currently in
-            while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
-                i--;
-            }
-
-            // Cursor is at beginning of current word, go back MaxNumKeywords - 1 now
-            for (int j = 0; j < maxNumKeywords - 1; j++) {
-                // Decrement through only one word-breaking character, if it exists
-                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
-                    i--;
-                }
-                // If there is more than one word-breaking space, break out now
-                // Do not consider queries with words separated by more than one word-breaking char
-                if (i > start && isWordBreakingChar(text.charAt(i - 1))) {
-                    break;
-                }
-                // Decrement until the next space
-                while (i > start && !isWordBreakingChar(text.charAt(i - 1))) {
-                    i--;
-                }
-            }
-
-            // Ensures that text.char(i) is not a word-breaking or explicit char (i.e. cursor must have a
-            // word-breaking char in front of it and a non-word-breaking char behind it)
-            while (i < cursor && (isWordBreakingChar(text.charAt(i)) || isExplicitChar(text.charAt(i)))) {
-                i++;
-            }
-
-            return i;
-        }
+        return findTokenStart(text, cursor, getSearchStartIndex(text, cursor), isExplicit(text, cursor));
     }
 
     /**
@@ -109,42 +54,60 @@ public class WordTokenizer implements Tokenizer {
      */
     @Override
     public int findTokenEnd(final @NonNull Spanned text, final int cursor) {
-        int i = cursor;
-        int end = getSearchEndIndex(text, cursor);
+        return findTokenEnd(text, cursor, getSearchEndIndex(text, cursor));
+    }
 
-        // Starting from the cursor, increment i until it reaches the first word-breaking char
-        while (i >= 0 && i < end) {
-            if (isWordBreakingChar(text.charAt(i))) {
-                return i;
-            } else {
-                i++;
-            }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: The search window around the cursor and the explicit character are only computed once, and no objects are
+     * allocated unless there are {@link MentionSpan}s on the current line.
+     */
+    @Override
+    @NonNull
+    public TokenMatch findTokenMatch(final @NonNull Spanned text, final int cursor, final @NonNull TokenMatch match) {
+        if (cursor < 0 || cursor > text.length()) {
+            match.clear();
+            return match;
         }
 
-        return i;
+        int searchStart = getSearchStartIndex(text, cursor);
+        int searchEnd = getSearchEndIndex(text, cursor);
+        boolean isExplicit = isExplicit(text, cursor);
+        int start = findTokenStart(text, cursor, searchStart, isExplicit);
+        int end = findTokenEnd(text, cursor, searchEnd);
+        if (start < 0 || start > end) {
+            match.clear();
+            return match;
+        }
+
+        char firstChar = (start < end) ? text.charAt(start) : 0;
+        char explicitChar = (start < end && isExplicitChar(firstChar)) ? firstChar : 0;
+        match.set(text, start, end, explicitChar, isValidMention(text, start, end));
+        return match;
     }
 
     /**
      * {@inheritDoc}
      */
     public boolean isValidMention(final @NonNull Spanned text, final int start, final int end) {
-        // Get the token
-        CharSequence token = text.subSequence(start, end);
+        // Note: The token is examined in place (i.e. between start and end in the text) to avoid copying it
 
         // Null or empty string is not a valid mention
-        if (TextUtils.isEmpty(token)) {
+        if (start < 0 || start >= end || end > text.length()) {
             return false;
         }
 
         // Handle explicit mentions first, then implicit mentions
         final int threshold = mConfig.THRESHOLD;
-        boolean multipleWords = containsWordBreakingChar(token);
-        boolean containsExplicitChar = containsExplicitChar(token);
+        final int length = end - start;
+        boolean multipleWords = containsWordBreakingChar(text, start, end);
+        boolean containsExplicitChar = containsExplicitChar(text, start, end);
 
         if (!multipleWords && containsExplicitChar) {
 
             // If it is one word and has an explicit char, the explicit char must be the first char
-            if (!isExplicitChar(token.charAt(0))) {
+            if (!isExplicitChar(text.charAt(start))) {
                 return false;
             }
 
@@ -155,32 +118,32 @@ public class WordTokenizer implements Tokenizer {
             }
 
             // Return true if string is just an explicit character
-            if (token.length() == 1) {
+            if (length == 1) {
                 return true;
             }
 
             // If input has length greater than one, the second character must be a letter or digit
             // Return true if and only if second character is a letter or digit, i.e. "@d"
-            return Character.isLetterOrDigit(token.charAt(1));
+            return isLetterOrDigitAt(text, start + 1);
 
-        } else if (token.length() >= threshold) {
+        } else if (length >= threshold) {
 
             // Change behavior depending on if keywords is one or more words
             if (!multipleWords) {
                 // One word, no explicit characters
                 // input is only one word, i.e. "u41"
-                return onlyLettersOrDigits(token, threshold, 0);
+                return onlyLettersOrDigits(text, threshold, start, end);
             } else if (containsExplicitChar) {
                 // Multiple words, has explicit character
                 // Must have a space, the explicit character, then a letter or digit
                 return hasWordBreakingCharBeforeExplicitChar(text, end)
-                        && isExplicitChar(token.charAt(0))
-                        && Character.isLetterOrDigit(token.charAt(1));
+                        && isExplicitChar(text.charAt(start))
+                        && isLetterOrDigitAt(text, start + 1);
             } else {
                 // Multiple words, no explicit character
                 // Either the first or last couple of characters must be letters/digits
-                boolean firstCharactersValid = onlyLettersOrDigits(token, threshold, 0);
-                boolean lastCharactersValid = onlyLettersOrDigits(token, threshold, token.length() - threshold);
+                boolean firstCharactersValid = onlyLettersOrDigits(text, threshold, start, end);
+                boolean lastCharactersValid = onlyLettersOrDigits(text, threshold, end - threshold, end);
                 return firstCharactersValid || lastCharactersValid;
             }
         }
@@ -202,28 +165,14 @@ public class WordTokenizer implements Tokenizer {
      * {@inheritDoc}
      */
     public boolean isExplicitChar(final char c) {
-        final String explicitChars = mConfig.EXPLICIT_CHARS;
-        for (int i = 0; i < explicitChars.length(); i++) {
-            char explicitChar = explicitChars.charAt(i);
-            if (c == explicitChar) {
-                return true;
-            }
-        }
-        return false;
+        return mConfig.EXPLICIT_CHAR_SET.contains(c);
     }
 
     /**
      * {@inheritDoc}
      */
     public boolean isWordBreakingChar(final char c) {
-        final String wordBreakChars = mConfig.WORD_BREAK_CHARS;
-        for (int i = 0; i < wordBreakChars.length(); i++) {
-            char wordBreakChar = wordBreakChars.charAt(i);
-            if (c == wordBreakChar) {
-                return true;
-            }
-        }
-        return false;
+        return mConfig.WORD_BREAK_CHAR_SET.contains(c);
     }
 
     // --------------------------------------------------
@@ -257,23 +206,34 @@ public class WordTokenizer implements Tokenizer {
         if (cursor < 0 || cursor > text.length()) {
             return (char) 0;
         }
-        SpannableStringBuilder ssb = new SpannableStringBuilder(text);
-        int start = getSearchStartIndex(ssb, cursor);
+
+        // Scan backwards from the cursor, stopping at the start of the line
+        // Note: The text is read in place, so no objects are allocated unless there are mentions next to the cursor
+        final String lineSeparator = mConfig.LINE_SEPARATOR;
+        final int lastLineSeparatorIndex = cursor - lineSeparator.length();
         int i = cursor - 1;
         int numWordBreakingCharsSeen = 0;
-        while (i >= start) {
+        while (i >= 0) {
+            if (lineSeparator.length() > 0 && i <= lastLineSeparatorIndex && regionMatches(text, i, lineSeparator)) {
+                // Reached the start of the line without finding an explicit character
+                return (char) 0;
+            }
             char currentChar = text.charAt(i);
             if (isExplicitChar(currentChar)) {
-                // Explicit character must have a word-breaking character before it
-                if (i == 0 || isWordBreakingChar(text.charAt(i - 1))) {
+                // Explicit character must have a word-breaking character before it and must not be separated
+                // from the cursor by a mention
+                if ((i == 0 || isWordBreakingCharAt(text, i - 1)) && !hasMentionEndingBetween(text, i, cursor)) {
                     return currentChar;
                 } else {
                     // Otherwise, explicit character is not in a valid position, return null char
                     return (char) 0;
                 }
-            } else if (isWordBreakingChar(currentChar)) {
+            } else if (isWordBreakingCharAt(text, i)) {
                 // Do not allow the explicit mention to exceed
-                numWordBreakingCharsSeen++;
+                // Note: A supplementary word-breaking character is only counted once (at its high surrogate)
+                if (!isTrailingSurrogateAt(text, i)) {
+                    numWordBreakingCharsSeen++;
+                }
                 if (numWordBreakingCharsSeen == mConfig.MAX_NUM_KEYWORDS) {
                     // No explicit char in maxNumKeywords, so return null char
                     return (char) 0;
@@ -292,15 +252,7 @@ public class WordTokenizer implements Tokenizer {
      * @return true if input contains an explicit character
      */
     public boolean containsExplicitChar(final @NonNull CharSequence input) {
-        if (!TextUtils.isEmpty(input)) {
-            for (int i = 0; i < input.length(); i++) {
-                char c = input.charAt(i);
-                if (isExplicitChar(c)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return !TextUtils.isEmpty(input) && containsExplicitChar(input, 0, input.length());
     }
 
     /**
@@ -311,15 +263,7 @@ public class WordTokenizer implements Tokenizer {
      * @return true if input contains a word-breaking character
      */
     public boolean containsWordBreakingChar(final @NonNull CharSequence input) {
-        if (!TextUtils.isEmpty(input)) {
-            for (int i = 0; i < input.length(); i++) {
-                char c = input.charAt(i);
-                if (isWordBreakingChar(c)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return !TextUtils.isEmpty(input) && containsWordBreakingChar(input, 0, input.length());
     }
 
     /**
@@ -333,28 +277,7 @@ public class WordTokenizer implements Tokenizer {
      * @return true if the first "numCharsToCheck" at the starting index are either letters or digits
      */
     public boolean onlyLettersOrDigits(final @NonNull CharSequence input, final int numCharsToCheck, final int start) {
-
-        // Starting position must be within the input string
-        if (start < 0 || start > input.length()) {
-            return false;
-        }
-
-        // Check the first "numCharsToCheck" characters to ensure they are a letter or digit
-        for (int i = 0; i < numCharsToCheck; i++) {
-            int positionToCheck = start + i;
-            // Return false if we would throw an Out-of-Bounds exception
-            if (positionToCheck >= input.length()) {
-                return false;
-            }
-            // Return false early if current character is not a letter or digit
-            char charToCheck = input.charAt(positionToCheck);
-            if (!Character.isLetterOrDigit(charToCheck)) {
-                return false;
-            }
-        }
-
-        // First "numCharsToCheck" characters are either letters or digits, so return true
-        return true;
+        return onlyLettersOrDigits(input, numCharsToCheck, start, input.length());
     }
 
     // --------------------------------------------------
@@ -364,6 +287,9 @@ public class WordTokenizer implements Tokenizer {
     /**
      * Returns the index of the end of the last span before the cursor or
      * the start of the current line if there are no spans before the cursor.
+     * <p>
+     * Note: Only the current line is examined (found by scanning backwards from the cursor), so the cost of this
+     * method depends on the length of the line rather than the length of the text.
      *
      * @param text   the {@link Spanned} to examine
      * @param cursor position of the cursor in text
@@ -375,9 +301,12 @@ public class WordTokenizer implements Tokenizer {
             cursor = 0;
         }
 
-        // Get index of the end of the last span before the cursor (or 0 if does not exist)
-        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
-        int closestToCursor = 0;
+        // Get the index of the start of the line
+        int lineStartIndex = findLineStart(text, cursor);
+
+        // Get index of the end of the last span on the current line before the cursor (or the line start if none)
+        MentionSpan[] spans = text.getSpans(lineStartIndex, cursor, MentionSpan.class);
+        int closestToCursor = lineStartIndex;
         for (MentionSpan span : spans) {
             int end = text.getSpanEnd(span);
             if (end > closestToCursor && end <= cursor) {
@@ -385,20 +314,15 @@ public class WordTokenizer implements Tokenizer {
             }
         }
 
-        // Get the index of the start of the line
-        String textString = text.toString().substring(0, cursor);
-        int lineStartIndex = 0;
-        if (textString.contains(mConfig.LINE_SEPARATOR)) {
-            lineStartIndex = textString.lastIndexOf(mConfig.LINE_SEPARATOR) + 1;
-        }
-
-        // Return whichever is closer before to the cursor
-        return Math.max(closestToCursor, lineStartIndex);
+        return closestToCursor;
     }
 
     /**
      * Returns the index of the beginning of the first span after the cursor or
      * length of the text if there are no spans after the cursor.
+     * <p>
+     * Note: Only the current line is examined (found by scanning forwards from the cursor), so the cost of this
+     * method depends on the length of the line rather than the length of the text.
      *
      * @param text   the {@link Spanned} to examine
      * @param cursor position of the cursor in text
@@ -410,9 +334,12 @@ public class WordTokenizer implements Tokenizer {
             cursor = 0;
         }
 
-        // Get index of the start of the first span after the cursor (or text.length() if does not exist)
-        MentionSpan[] spans = text.getSpans(0, text.length(), MentionSpan.class);
-        int closestAfterCursor = text.length();
+        // Get the index of the end of the line
+        int lineEndIndex = findLineEnd(text, cursor);
+
+        // Get index of the start of the first span on the current line after the cursor (or the line end if none)
+        MentionSpan[] spans = text.getSpans(cursor, lineEndIndex, MentionSpan.class);
+        int closestAfterCursor = lineEndIndex;
         for (MentionSpan span : spans) {
             int start = text.getSpanStart(span);
             if (start < closestAfterCursor && start >= cursor) {
@@ -420,15 +347,7 @@ public class WordTokenizer implements Tokenizer {
             }
         }
 
-        // Get the index of the end of the line
-        String textString = text.toString().substring(cursor, text.length());
-        int lineEndIndex = text.length();
-        if (textString.contains(mConfig.LINE_SEPARATOR)) {
-            lineEndIndex = cursor + textString.indexOf(mConfig.LINE_SEPARATOR);
-        }
-
-        // Return whichever is closest after the cursor
-        return Math.min(closestAfterCursor, lineEndIndex);
+        return closestAfterCursor;
     }
 
     /**
@@ -445,18 +364,291 @@ public class WordTokenizer implements Tokenizer {
      * @return true if there is a space before the explicit character, false otherwise
      */
     protected boolean hasWordBreakingCharBeforeExplicitChar(final @NonNull Spanned text, final int cursor) {
-        CharSequence beforeCursor = text.subSequence(0, cursor);
         // Get the explicit character closest before the cursor and make sure it
         // has a word-breaking character in front of it
-        int i = cursor - 1;
-        while (i >= 0 && i < beforeCursor.length()) {
-            char c = beforeCursor.charAt(i);
+        int i = Math.min(cursor, text.length()) - 1;
+        while (i >= 0) {
+            char c = text.charAt(i);
             if (isExplicitChar(c)) {
-                return i == 0 || isWordBreakingChar(beforeCursor.charAt(i - 1));
+                return i == 0 || isWordBreakingCharAt(text, i - 1);
             }
             i--;
         }
         return false;
     }
 
+    // --------------------------------------------------
+    // Private Helper Methods
+    // --------------------------------------------------
+
+    /**
+     * Returns the start of the token ending at the cursor, searching no further back than the given index.
+     *
+     * @param text        the {@link Spanned} to find the token in
+     * @param cursor      position of the cursor in text
+     * @param start       the furthest in front of the cursor to search (see {@link #getSearchStartIndex(Spanned, int)})
+     * @param isExplicit  true if there is an explicit character before the cursor (see {@link #isExplicit(CharSequence, int)})
+     *
+     * @return index of the first character in the token
+     */
+    private int findTokenStart(final @NonNull Spanned text, final int cursor, final int start, final boolean isExplicit) {
+        int i = cursor;
+
+        // If it is explicit, return the index of the first explicit character
+        if (isExplicit) {
+            i--;
+            while (i >= start) {
+                char currentChar = text.charAt(i);
+                if (isExplicitChar(currentChar)) {
+                    if (i == 0 || isWordBreakingCharAt(text, i - 1)) {
+                        return i;
+                    }
+                }
+                i--;
+            }
+            // Could not find explicit character before the cursor
+            // Note: This case should never happen (means that isExplicit
+            // returned true when it should have been false)
+            return -1;
+
+        } else {
+
+            // For implicit tokens, we need to go back a certain number of words to find the start
+            // of the token (with the max number of words to go back defined in the config)
+            int maxNumKeywords = mConfig.MAX_NUM_KEYWORDS;
+
+            // Go back to the start of the word that the cursor is currently in
+            while (i > start && !isWordBreakingCharAt(text, i - 1)) {
+                i--;
+            }
+
+            // Cursor is at beginning of current word, go back MaxNumKeywords - 1 now
+            for (int j = 0; j < maxNumKeywords - 1; j++) {
+                // Decrement through only one word-breaking character, if it exists
+                // Note: A supplementary word-breaking character takes up two chars
+                if (i > start && isWordBreakingCharAt(text, i - 1)) {
+                    i -= (i - 1 > start && isTrailingSurrogateAt(text, i - 1)) ? 2 : 1;
+                }
+                // If there is more than one word-breaking space, break out now
+                // Do not consider queries with words separated by more than one word-breaking char
+                if (i > start && isWordBreakingCharAt(text, i - 1)) {
+                    break;
+                }
+                // Decrement until the next space
+                while (i > start && !isWordBreakingCharAt(text, i - 1)) {
+                    i--;
+                }
+            }
+
+            // Ensures that text.char(i) is not a word-breaking or explicit char (i.e. cursor must have a
+            // word-breaking char in front of it and a non-word-breaking char behind it)
+            while (i < cursor && (isWordBreakingCharAt(text, i) || isExplicitChar(text.charAt(i)))) {
+                i++;
+            }
+
+            return i;
+        }
+    }
+
+    /**
+     * Returns the end of the token beginning at the cursor, searching no further than the given index.
+     *
+     * @param text   the {@link Spanned} to find the token in
+     * @param cursor position of the cursor in text
+     * @param end    the furthest behind the cursor to search (see {@link #getSearchEndIndex(Spanned, int)})
+     *
+     * @return index after the last character in the token
+     */
+    private int findTokenEnd(final @NonNull Spanned text, final int cursor, final int end) {
+        int i = cursor;
+
+        // Starting from the cursor, increment i until it reaches the first word-breaking char
+        while (i >= 0 && i < end) {
+            if (isWordBreakingCharAt(text, i)) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+
+        return i;
+    }
+
+    /**
+     * Returns true if a {@link MentionSpan} ends after the given index and at or before the cursor, i.e. if there is a
+     * mention between the index and the cursor.
+     *
+     * @param text   the {@link CharSequence} to examine (only a {@link Spanned} can contain mentions)
+     * @param index  index of a character before the cursor
+     * @param cursor position of the cursor in text
+     *
+     * @return true if there is a mention between the index and the cursor
+     */
+    private boolean hasMentionEndingBetween(final @NonNull CharSequence text, final int index, final int cursor) {
+        if (!(text instanceof Spanned)) {
+            return false;
+        }
+        // Note: Spanned implementations return a shared empty array when there are no spans in the range
+        Spanned spanned = (Spanned) text;
+        MentionSpan[] spans = spanned.getSpans(index, cursor, MentionSpan.class);
+        for (MentionSpan span : spans) {
+            int end = spanned.getSpanEnd(span);
+            if (end > index && end <= cursor) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if there is an explicit character between start and end in the input.
+     */
+    private boolean containsExplicitChar(final @NonNull CharSequence input, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (isExplicitChar(input.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if there is a word-breaking character between start and end in the input.
+     */
+    private boolean containsWordBreakingChar(final @NonNull CharSequence input, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (isWordBreakingCharAt(input, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the "numCharsToCheck" characters at the starting index are letters or digits, without reading
+     * past the given end index (see {@link #onlyLettersOrDigits(CharSequence, int, int)}).
+     */
+    private boolean onlyLettersOrDigits(final @NonNull CharSequence input, final int numCharsToCheck, final int start,
+                                        final int end) {
+
+        // Starting position must be within the input string
+        if (start < 0 || start > end) {
+            return false;
+        }
+
+        // Check the first "numCharsToCheck" characters to ensure they are a letter or digit
+        for (int i = 0; i < numCharsToCheck; i++) {
+            int positionToCheck = start + i;
+            // Return false if we would read past the end of the input
+            if (positionToCheck >= end) {
+                return false;
+            }
+            // Return false early if current character is not a letter or digit
+            if (!isLetterOrDigitAt(input, positionToCheck)) {
+                return false;
+            }
+        }
+
+        // First "numCharsToCheck" characters are either letters or digits, so return true
+        return true;
+    }
+
+    /**
+     * Returns the index of the first character of the line containing the cursor, scanning backwards from the cursor
+     * for the configured line separator.
+     *
+     * @param text   the {@link CharSequence} to examine
+     * @param cursor position of the cursor in text
+     *
+     * @return index of the start of the current line, or 0 if the cursor is on the first line
+     */
+    private int findLineStart(final @NonNull CharSequence text, final int cursor) {
+        final String separator = mConfig.LINE_SEPARATOR;
+        if (separator.length() == 0) {
+            return 0;
+        }
+        for (int i = cursor - separator.length(); i >= 0; i--) {
+            if (regionMatches(text, i, separator)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the index of the line separator ending the line containing the cursor, scanning forwards from the
+     * cursor.
+     *
+     * @param text   the {@link CharSequence} to examine
+     * @param cursor position of the cursor in text
+     *
+     * @return index of the end of the current line, or the length of the text if the cursor is on the last line
+     */
+    private int findLineEnd(final @NonNull CharSequence text, final int cursor) {
+        final String separator = mConfig.LINE_SEPARATOR;
+        if (separator.length() == 0) {
+            return text.length();
+        }
+        for (int i = cursor; i <= text.length() - separator.length(); i++) {
+            if (regionMatches(text, i, separator)) {
+                return i;
+            }
+        }
+        return text.length();
+    }
+
+    /**
+     * Returns true if the character at the given index is a word-breaking character. If the character is half of a
+     * surrogate pair, the supplementary code point that the pair represents is checked instead.
+     */
+    private boolean isWordBreakingCharAt(final @NonNull CharSequence text, final int index) {
+        return mConfig.WORD_BREAK_CHAR_SET.contains(codePointContaining(text, index));
+    }
+
+    /**
+     * Returns true if the character at the given index is a letter or digit. If the character is half of a surrogate
+     * pair, the supplementary code point that the pair represents is checked instead.
+     */
+    private static boolean isLetterOrDigitAt(final @NonNull CharSequence text, final int index) {
+        return Character.isLetterOrDigit(codePointContaining(text, index));
+    }
+
+    /**
+     * Returns the code point that the character at the given index is part of, i.e. the supplementary code point if
+     * the character is either half of a surrogate pair, or the character itself otherwise.
+     */
+    private static int codePointContaining(final @NonNull CharSequence text, final int index) {
+        char c = text.charAt(index);
+        if (Character.isHighSurrogate(c) && index + 1 < text.length()) {
+            char next = text.charAt(index + 1);
+            if (Character.isLowSurrogate(next)) {
+                return Character.toCodePoint(c, next);
+            }
+        } else if (isTrailingSurrogateAt(text, index)) {
+            return Character.toCodePoint(text.charAt(index - 1), c);
+        }
+        return c;
+    }
+
+    /**
+     * Returns true if the character at the given index is the second half of a surrogate pair.
+     */
+    private static boolean isTrailingSurrogateAt(final @NonNull CharSequence text, final int index) {
+        return index > 0 && Character.isLowSurrogate(text.charAt(index))
+                && Character.isHighSurrogate(text.charAt(index - 1));
+    }
+
+    /**
+     * Returns true if the given string occurs in text at the given offset. Unlike {@link String#regionMatches}, this
+     * does not require copying the text into a {@link String} first.
+     */
+    private static boolean regionMatches(final @NonNull CharSequence text, final int offset, final @NonNull String s) {
+        for (int j = 0; j < s.length(); j++) {
+            if (text.charAt(offset + j) != s.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 }
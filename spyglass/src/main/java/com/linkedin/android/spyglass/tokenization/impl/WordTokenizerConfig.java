@@ -15,6 +15,7 @@
 package com.linkedin.android.spyglass.tokenization.impl;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 /**
  * Class used to configure various parsing options for the {@link WordTokenizer}. Instantiate using the
@@ -37,16 +38,27 @@ public class WordTokenizerConfig {
     // Characters to use to separate words
     @NonNull public final String WORD_BREAK_CHARS;
 
+    // Lookup tables compiled from the explicit characters (and any additional explicit character set)
+    // Note: Only characters in the Basic Multilingual Plane can be used as explicit characters by the tokenizer
+    @NonNull public final CodePointSet EXPLICIT_CHAR_SET;
+
+    // Lookup tables compiled from the word-breaking characters (and any additional word-breaking character set)
+    @NonNull public final CodePointSet WORD_BREAK_CHAR_SET;
+
     private WordTokenizerConfig(final @NonNull String lineSeparator,
                                 final int threshold,
                                 final int maxNumKeywords,
                                 final @NonNull String explicitChars,
-                                final @NonNull String wordBreakChars) {
+                                final @NonNull String wordBreakChars,
+                                final @NonNull CodePointSet explicitCharSet,
+                                final @NonNull CodePointSet wordBreakCharSet) {
         LINE_SEPARATOR = lineSeparator;
         THRESHOLD = threshold;
         MAX_NUM_KEYWORDS = maxNumKeywords;
         EXPLICIT_CHARS = explicitChars;
         WORD_BREAK_CHARS = wordBreakChars;
+        EXPLICIT_CHAR_SET = explicitCharSet;
+        WORD_BREAK_CHAR_SET = wordBreakCharSet;
     }
 
     public static class Builder {
@@ -57,6 +69,8 @@ public class WordTokenizerConfig {
         private int maxNumKeywords = 1;
         private String explicitChars = "@";
         private String wordBreakChars = " ." + System.getProperty("line.separator");
+        private CodePointSet explicitCharSet = null;
+        private CodePointSet wordBreakCharSet = null;
 
         @NonNull
         public Builder setLineSeparator(@NonNull String lineSeparator) {
@@ -88,9 +102,49 @@ public class WordTokenizerConfig {
             return this;
         }
 
+        /**
+         * Sets additional explicit characters, used along with the characters from
+         * {@link #setExplicitChars(String)}.
+         *
+         * @param explicitCharSet the additional explicit characters
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setExplicitCharSet(@NonNull CodePointSet explicitCharSet) {
+            this.explicitCharSet = explicitCharSet;
+            return this;
+        }
+
+        /**
+         * Sets additional word-breaking characters, used along with the characters from
+         * {@link #setWordBreakChars(String)}. This is useful for large sets, i.e. all Unicode whitespace and
+         * punctuation.
+         *
+         * @param wordBreakCharSet the additional word-breaking characters
+         *
+         * @return this builder
+         */
+        @NonNull
+        public Builder setWordBreakCharSet(@NonNull CodePointSet wordBreakCharSet) {
+            this.wordBreakCharSet = wordBreakCharSet;
+            return this;
+        }
+
         @NonNull
         public WordTokenizerConfig build() {
-            return new WordTokenizerConfig(lineSeparator, threshold, maxNumKeywords, explicitChars, wordBreakChars);
+            return new WordTokenizerConfig(lineSeparator, threshold, maxNumKeywords, explicitChars, wordBreakChars,
+                                           compile(explicitChars, explicitCharSet),
+                                           compile(wordBreakChars, wordBreakCharSet));
+        }
+
+        @NonNull
+        private static CodePointSet compile(@NonNull String chars, @Nullable CodePointSet additionalChars) {
+            CodePointSet.Builder builder = new CodePointSet.Builder().addAll(chars);
+            if (additionalChars != null) {
+                builder.addAll(additionalChars);
+            }
+            return builder.build();
         }
     }
 }
@@ -0,0 +1,43 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.tokenization.interfaces;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+
+/**
+ * Interface used to decide when, and if, a {@link QueryToken} found while the user is typing is sent to a
+ * {@link QueryTokenReceiver}. This allows the rate of queries to be reduced (i.e. by waiting for the user to stop
+ * typing, or by ignoring tokens that were just queried) without changing the receiver.
+ */
+public interface QueryDispatchPolicy {
+
+    /**
+     * Called with every valid {@link QueryToken} as the user types. The policy is responsible for calling
+     * {@link QueryTokenReceiver#onQueryReceived(QueryToken)} on the given receiver for any token that should be
+     * queried, either immediately or at a later time (on the main thread).
+     *
+     * @param queryToken the {@link QueryToken} found by the tokenizer
+     * @param receiver   the {@link QueryTokenReceiver} to send the token to
+     */
+    void onQueryToken(final @NonNull QueryToken queryToken, final @NonNull QueryTokenReceiver receiver);
+
+    /**
+     * Called when there is no longer a valid token to query (i.e. the user typed a word-breaking character or the
+     * suggestions were hidden). Any token that has not been dispatched yet must be dropped.
+     */
+    void reset();
+}
@@ -39,4 +39,16 @@ public interface QueryTokenReceiver {
      */
     @NonNull
     List<String> onQueryReceived(final @NonNull QueryToken queryToken);
+
+    /**
+     * Called when the results of a {@link QueryToken} previously passed to {@link #onQueryReceived(QueryToken)} are no
+     * longer needed, because the user kept typing (and the token was superseded by a new one) or the suggestions were
+     * dismissed. The client may use this to stop fetching or processing suggestions for the token early. Any results
+     * for the token that are still reported will be ignored.
+     *
+     * @param queryToken the {@link QueryToken} that was cancelled
+     */
+    default void onQueryCancelled(final @NonNull QueryToken queryToken) {
+        // Do nothing by default
+    }
 }
@@ -17,6 +17,7 @@ package com.linkedin.android.spyglass.tokenization.interfaces;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
 
 /**
  * Interface representing a source to generate and retrieve tokens.
@@ -41,4 +42,27 @@ public interface TokenSource {
     @Nullable
     QueryToken getQueryTokenIfValid();
 
+    /**
+     * Gets the token that the {@link Tokenizer} is currently considering for suggestions, along with its bounds and
+     * validity, in a single pass. Implementations may reuse the returned {@link TokenMatch} between calls, so it should
+     * not be kept.
+     * <p>
+     * The default implementation only knows the token string, not the text it was found in, so the text of the
+     * returned match is the token string itself: {@link TokenMatch#getStart()} is always 0 and
+     * {@link TokenMatch#getEnd()} is the length of the token, rather than bounds in the edited text. Implementations
+     * with access to the text (i.e. {@link com.linkedin.android.spyglass.ui.MentionsEditText}) override this method to
+     * return the actual bounds.
+     *
+     * @return a {@link TokenMatch} representing the current token
+     */
+    @NonNull
+    default TokenMatch getCurrentTokenMatch() {
+        String tokenString = getCurrentTokenString();
+        QueryToken queryToken = getQueryTokenIfValid();
+        boolean valid = queryToken != null && tokenString.equals(queryToken.getTokenString());
+        TokenMatch match = new TokenMatch();
+        match.set(tokenString, 0, tokenString.length(), valid ? queryToken.getExplicitChar() : 0, valid);
+        return match;
+    }
+
 }
@@ -17,6 +17,8 @@ package com.linkedin.android.spyglass.tokenization.interfaces;
 import androidx.annotation.NonNull;
 import android.text.Spanned;
 
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
+
 /**
  * An interface representing a tokenizer. Similar to {@link android.widget.MultiAutoCompleteTextView.Tokenizer}, but
  * it operates on {@link Spanned} objects instead of {@link CharSequence} objects.
@@ -54,6 +56,32 @@ public interface Tokenizer {
      */
     boolean isValidMention(final @NonNull Spanned text, final int start, final int end);
 
+    /**
+     * Finds the token around the cursor and determines whether it is a valid mention, storing the result in the given
+     * {@link TokenMatch}. This combines {@link #findTokenStart(Spanned, int)}, {@link #findTokenEnd(Spanned, int)} and
+     * {@link #isValidMention(Spanned, int, int)} into a single call, so implementations can override it to tokenize
+     * the text in one pass.
+     *
+     * @param text   the {@link Spanned} to find the token in
+     * @param cursor position of the cursor in text
+     * @param match  the {@link TokenMatch} to reuse for the result
+     *
+     * @return the given {@link TokenMatch}, updated to represent the current token
+     */
+    @NonNull
+    default TokenMatch findTokenMatch(final @NonNull Spanned text, final int cursor, final @NonNull TokenMatch match) {
+        int start = findTokenStart(text, cursor);
+        int end = findTokenEnd(text, cursor);
+        if (start < 0 || start > end || end > text.length()) {
+            match.clear();
+            return match;
+        }
+        char firstChar = (start < end) ? text.charAt(start) : 0;
+        char explicitChar = (start < end && isExplicitChar(firstChar)) ? firstChar : 0;
+        match.set(text, start, end, explicitChar, isValidMention(text, start, end));
+        return match;
+    }
+
     /**
      * Returns text, modified, to ensure that it ends with a token terminator if necessary.
      *
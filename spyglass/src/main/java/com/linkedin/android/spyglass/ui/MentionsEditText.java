@@ -31,7 +31,6 @@ import android.text.Selection;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 import android.text.Spanned;
-import android.text.TextUtils;
 import android.text.TextWatcher;
 import android.text.method.ArrowKeyMovementMethod;
 import android.text.method.LinkMovementMethod;
@@ -57,6 +56,10 @@ import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.MentionsEditable;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
+import com.linkedin.android.spyglass.tokenization.TokenizerSession;
+import com.linkedin.android.spyglass.tokenization.impl.ImmediateQueryDispatchPolicy;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryDispatchPolicy;
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
 import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
@@ -83,7 +86,12 @@ public class MentionsEditText extends EditText implements TokenSource {
     private static final String KEY_MENTION_SPAN_STARTS = "mention_span_starts";
 
     private Tokenizer mTokenizer;
+    @Nullable private TokenizerSession mTokenizerSession;
+    private final TokenMatch mTokenMatch = new TokenMatch();
     private QueryTokenReceiver mQueryTokenReceiver;
+    private QueryDispatchPolicy mQueryDispatchPolicy = new ImmediateQueryDispatchPolicy();
+    private final QueryTokenReceiver mDispatchReceiver = new DispatchReceiver();
+    @Nullable private QueryToken mLastDispatchedQueryToken;
     private SuggestionsVisibilityManager mSuggestionsVisibilityManager;
 
     private List<MentionWatcher> mMentionWatchers = new ArrayList<>();
@@ -166,18 +174,7 @@ public class MentionsEditText extends EditText implements TokenSource {
     @Override
     @NonNull
     public String getCurrentTokenString() {
-        // Get the text and ensure a valid tokenizer is set
-        Editable text = getText();
-        if (mTokenizer == null || text == null) {
-            return "";
-        }
-
-        // Use current text to determine token string
-        int cursor = Math.max(getSelectionStart(), 0);
-        int start = mTokenizer.findTokenStart(text, cursor);
-        int end = mTokenizer.findTokenEnd(text, cursor);
-        String contentString = text.toString();
-        return TextUtils.isEmpty(contentString) ? "" : contentString.substring(start, end);
+        return getCurrentTokenMatch().getTokenString();
     }
 
     /**
@@ -186,24 +183,28 @@ public class MentionsEditText extends EditText implements TokenSource {
     @Override
     @Nullable
     public QueryToken getQueryTokenIfValid() {
-        if (mTokenizer == null) {
-            return null;
-        }
-
-        // Use current text to determine the start and end index of the token
-        MentionsEditable text = getMentionsText();
-        int cursor = Math.max(getSelectionStart(), 0);
-        int start = mTokenizer.findTokenStart(text, cursor);
-        int end = mTokenizer.findTokenEnd(text, cursor);
+        return getCurrentTokenMatch().toQueryToken();
+    }
 
-        if (!mTokenizer.isValidMention(text, start, end)) {
-            return null;
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note: The returned {@link TokenMatch} is reused by this class, and is only valid until the text or selection
+     * changes. The token is kept up to date incrementally while the user types (see {@link TokenizerSession}).
+     */
+    @Override
+    @NonNull
+    public TokenMatch getCurrentTokenMatch() {
+        // Get the text and ensure a valid tokenizer is set
+        Editable text = getText();
+        if (mTokenizerSession == null || text == null) {
+            mTokenMatch.clear();
+            return mTokenMatch;
         }
 
-        String tokenString = text.subSequence(start, end).toString();
-        char firstChar = tokenString.charAt(0);
-        boolean isExplicit = mTokenizer.isExplicitChar(tokenString.charAt(0));
-        return (isExplicit ? new QueryToken(tokenString, firstChar) : new QueryToken(tokenString));
+        // Use current text to find the token around the cursor (only tokenizes the text again if necessary)
+        int cursor = Math.max(getSelectionStart(), 0);
+        return mTokenizerSession.getTokenMatch(text, cursor);
     }
 
     // --------------------------------------------------
@@ -272,6 +273,7 @@ public class MentionsEditText extends EditText implements TokenSource {
                 && mSuggestionsVisibilityManager != null
                 && mSuggestionsVisibilityManager.isDisplayingSuggestions()) {
             mSuggestionsVisibilityManager.displaySuggestions(false);
+            cancelLastDispatchedQuery();
             String keywords = getCurrentKeywordsString();
             String[] words = keywords.split(" ");
             if (words.length > 0) {
@@ -539,6 +541,33 @@ public class MentionsEditText extends EditText implements TokenSource {
         return false;
     }
 
+    // --------------------------------------------------
+    // Query Dispatch
+    // --------------------------------------------------
+
+    /**
+     * Receiver given to the {@link QueryDispatchPolicy}. Passes tokens on to the {@link QueryTokenReceiver}, cancelling
+     * the previous token sent to it when a different one is sent.
+     */
+    private class DispatchReceiver implements QueryTokenReceiver {
+
+        /**
+         * {@inheritDoc}
+         */
+        @NonNull
+        @Override
+        public List<String> onQueryReceived(@NonNull QueryToken queryToken) {
+            if (mQueryTokenReceiver == null) {
+                return new ArrayList<>();
+            }
+            if (mLastDispatchedQueryToken != null && !mLastDispatchedQueryToken.equals(queryToken)) {
+                mQueryTokenReceiver.onQueryCancelled(mLastDispatchedQueryToken);
+            }
+            mLastDispatchedQueryToken = queryToken;
+            return mQueryTokenReceiver.onQueryReceived(queryToken);
+        }
+    }
+
     // --------------------------------------------------
     // TextWatcher Implementation
     // --------------------------------------------------
@@ -551,9 +580,16 @@ public class MentionsEditText extends EditText implements TokenSource {
         @Override
         public void beforeTextChanged(CharSequence text, int start, int before, int after) {
             if (mBlockCompletion) {
+                // Text is being changed by this class, so the current token must be found again from scratch
+                invalidateTokenizerSession();
                 return;
             }
 
+            // Let the tokenizer session see the change
+            if (mTokenizerSession != null) {
+                mTokenizerSession.beforeTextChanged(text, start, before, after);
+            }
+
             // Mark a span for deletion later if necessary
             boolean changed = markSpans(before, after);
 
@@ -575,6 +611,11 @@ public class MentionsEditText extends EditText implements TokenSource {
                 return;
             }
 
+            // Update the current token incrementally if possible
+            if (mTokenizerSession != null) {
+                mTokenizerSession.onTextChanged(text, start, before, count);
+            }
+
             // If the editor tries to insert duplicated text, mark the duplicated text for deletion later
             Editable editable = (Editable) text;
             int index = Selection.getSelectionStart(editable);
@@ -731,6 +772,8 @@ public class MentionsEditText extends EditText implements TokenSource {
                 editable.setSpan(new PlaceholderSpan(span, spanStart, spanEnd),
                         spanStart, spanEnd, Spanned.SPAN_EXCLUSIVE_INCLUSIVE);
                 editable.removeSpan(span);
+                // Mentions around the current token have changed
+                invalidateTokenizerSession();
             }
         }
     }
@@ -887,15 +930,21 @@ public class MentionsEditText extends EditText implements TokenSource {
      * editing text in this function is guaranteed to be safe and not cause an infinite loop.
      */
     private void handleTextChanged() {
+        // Tokenize the text once, and use the result for both the avoided prefix and the query
+        TokenMatch tokenMatch = getCurrentTokenMatch();
+
         // Ignore requests if the last word in keywords is prefixed by the currently avoided prefix
         if (mAvoidedPrefix != null) {
-            String[] keywords = getCurrentKeywordsString().split(" ");
+            String[] keywords = tokenMatch.getKeywords().toString().split(" ");
             // Add null and length check to avoid the ArrayIndexOutOfBoundsException
             if (keywords.length == 0) {
                 return;
             }
             String lastKeyword = keywords[keywords.length - 1];
             if (lastKeyword.startsWith(mAvoidedPrefix)) {
+                // Do not send any token that was waiting to be dispatched either
+                mQueryDispatchPolicy.reset();
+                cancelLastDispatchedQuery();
                 return;
             } else {
                 setAvoidedPrefix(null);
@@ -903,18 +952,41 @@ public class MentionsEditText extends EditText implements TokenSource {
         }
 
         // Request suggestions from the QueryClient
-        QueryToken queryToken = getQueryTokenIfValid();
+        QueryToken queryToken = tokenMatch.toQueryToken();
         if (queryToken != null && mQueryTokenReceiver != null) {
-            // Valid token, so send query to the app for processing
-            mQueryTokenReceiver.onQueryReceived(queryToken);
+            // Valid token, so send query to the app for processing (when the dispatch policy allows it)
+            mQueryDispatchPolicy.onQueryToken(queryToken, mDispatchReceiver);
         } else {
-            // Ensure that the suggestions are hidden
+            // Drop any token that has not been sent yet, cancel the last one sent, and ensure that the suggestions are
+            // hidden
+            mQueryDispatchPolicy.reset();
+            cancelLastDispatchedQuery();
             if (mSuggestionsVisibilityManager != null) {
                 mSuggestionsVisibilityManager.displaySuggestions(false);
             }
         }
     }
 
+    /**
+     * Notifies the {@link QueryTokenReceiver} that the results for the last token sent to it are no longer needed.
+     */
+    private void cancelLastDispatchedQuery() {
+        QueryToken queryToken = mLastDispatchedQueryToken;
+        mLastDispatchedQueryToken = null;
+        if (queryToken != null && mQueryTokenReceiver != null) {
+            mQueryTokenReceiver.onQueryCancelled(queryToken);
+        }
+    }
+
+    /**
+     * Ensures that the current token is found again from scratch the next time it is needed.
+     */
+    private void invalidateTokenizerSession() {
+        if (mTokenizerSession != null) {
+            mTokenizerSession.invalidate();
+        }
+    }
+
     // --------------------------------------------------
     // Public Methods
     // --------------------------------------------------
@@ -927,11 +999,7 @@ public class MentionsEditText extends EditText implements TokenSource {
      */
     @NonNull
     public String getCurrentKeywordsString() {
-        String keywordsString = getCurrentTokenString();
-        if (keywordsString.length() > 0 && mTokenizer.isExplicitChar(keywordsString.charAt(0))) {
-            keywordsString = keywordsString.substring(1);
-        }
-        return keywordsString;
+        return getCurrentTokenMatch().getKeywords().toString();
     }
 
     /**
@@ -1027,6 +1095,10 @@ public class MentionsEditText extends EditText implements TokenSource {
             mSuggestionsVisibilityManager.displaySuggestions(false);
         }
 
+        // The token was replaced by the mention, so its suggestions are no longer needed
+        mQueryDispatchPolicy.reset();
+        cancelLastDispatchedQuery();
+
         // Reset input method since text has been changed (updates mention draw states)
         restartInput();
     }
@@ -1037,8 +1109,7 @@ public class MentionsEditText extends EditText implements TokenSource {
      * @return true if the {@link Tokenizer} is currently considering an explicit query
      */
     public boolean isCurrentlyExplicit() {
-        String tokenString = getCurrentTokenString();
-        return tokenString.length() > 0 && mTokenizer != null && mTokenizer.isExplicitChar(tokenString.charAt(0));
+        return getCurrentTokenMatch().isExplicit();
     }
 
     /**
@@ -1313,6 +1384,7 @@ public class MentionsEditText extends EditText implements TokenSource {
      */
     public void setTokenizer(@Nullable final Tokenizer tokenizer) {
         mTokenizer = tokenizer;
+        mTokenizerSession = (tokenizer != null) ? new TokenizerSession(tokenizer) : null;
     }
 
     /**
@@ -1325,6 +1397,17 @@ public class MentionsEditText extends EditText implements TokenSource {
         mQueryTokenReceiver = queryTokenReceiver;
     }
 
+    /**
+     * Sets the policy that decides when query tokens are sent to the {@link QueryTokenReceiver}. By default, tokens
+     * are sent as soon as they are found (see {@link ImmediateQueryDispatchPolicy}).
+     *
+     * @param queryDispatchPolicy the {@link QueryDispatchPolicy} to use
+     */
+    public void setQueryDispatchPolicy(@NonNull final QueryDispatchPolicy queryDispatchPolicy) {
+        mQueryDispatchPolicy.reset();
+        mQueryDispatchPolicy = queryDispatchPolicy;
+    }
+
     /**
      * Sets the suggestions manager used by this class.
      *
@@ -26,6 +26,7 @@ import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.AdapterView;
 import android.widget.EditText;
 import android.widget.ListView;
@@ -40,23 +41,33 @@ import com.linkedin.android.spyglass.mentions.MentionSpan;
 import com.linkedin.android.spyglass.mentions.MentionSpanConfig;
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.MentionsEditable;
+import com.linkedin.android.spyglass.suggestions.NegativeResultCache;
+import com.linkedin.android.spyglass.suggestions.SuggestionRoutingTable;
 import com.linkedin.android.spyglass.suggestions.SuggestionsAdapter;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.impl.BasicSuggestionsListBuilder;
+import com.linkedin.android.spyglass.suggestions.interfaces.OnLoadMoreSuggestionsListener;
 import com.linkedin.android.spyglass.suggestions.interfaces.OnSuggestionsVisibilityChangeListener;
+import com.linkedin.android.spyglass.suggestions.interfaces.StreamingSuggestionsResultListener;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
-import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
 import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsVisibilityManager;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
 import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
 import com.linkedin.android.spyglass.tokenization.impl.WordTokenizerConfig;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryDispatchPolicy;
 import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.tokenization.interfaces.Tokenizer;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Custom view for the RichEditor. Manages three subviews:
@@ -74,7 +85,7 @@ import java.util.Objects;
  * @attr ref R.styleable#RichEditorView_selectedMentionTextColor
  * @attr ref R.styleable#RichEditorView_selectedMentionTextBackgroundColor
  */
-public class RichEditorView extends RelativeLayout implements TextWatcher, QueryTokenReceiver, SuggestionsResultListener, SuggestionsVisibilityManager {
+public class RichEditorView extends RelativeLayout implements TextWatcher, QueryTokenReceiver, StreamingSuggestionsResultListener, SuggestionsVisibilityManager {
 
     private MentionsEditText mMentionsEditText;
     private int mOriginalInputType = InputType.TYPE_CLASS_TEXT; // Default to plain text
@@ -84,6 +95,7 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
     private QueryTokenReceiver mHostQueryTokenReceiver;
     private SuggestionsAdapter mSuggestionsAdapter;
     private OnSuggestionsVisibilityChangeListener mActionListener;
+    private OnLoadMoreSuggestionsListener mLoadMoreSuggestionsListener;
 
     private ViewGroup.LayoutParams mPrevEditTextParams;
     private boolean mEditTextShouldWrapContent = false; // Default to match parent in height
@@ -94,6 +106,25 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
     private int mBeyondCountLimitTextColor = Color.RED;
 
     private boolean mWaitingForFirstResult = false;
+
+    // Changes to the suggestions received from any thread, applied together on the UI thread at the next frame
+    private final Queue<Runnable> mPendingResults = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean mApplyResultsScheduled = new AtomicBoolean(false);
+    private final Runnable mApplyPendingResults = this::applyPendingResults;
+
+    // Number of suggestions from the end of the list at which the next page of suggestions is requested
+    private static final int LOAD_MORE_THRESHOLD = 5;
+
+    // Latest token sent to the host receiver, and whether it has been cancelled since (read when results are received,
+    // which may happen on any thread)
+    @Nullable private volatile QueryToken mLatestQueryToken;
+    private volatile boolean mLatestQueryTokenCancelled = false;
+
+    // Tokens each bucket had no results for, the routes deciding which buckets a token is skipped for, and the latest
+    // token if it was skipped (i.e. never sent to the host receiver, so it is not cancelled there either)
+    private final NegativeResultCache mNegativeResultCache = new NegativeResultCache();
+    @Nullable private SuggestionRoutingTable mRoutingTable;
+    @Nullable private QueryToken mSkippedQueryToken;
     private boolean mDisplayTextCount = true;
 
     // --------------------------------------------------
@@ -155,6 +186,20 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
             }
         });
 
+        // Request the next page of suggestions when scrolling near the end of the list
+        mSuggestionsList.setOnScrollListener(new AbsListView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(AbsListView view, int scrollState) {
+            }
+
+            @Override
+            public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+                if (totalItemCount > 0 && firstVisibleItem + visibleItemCount >= totalItemCount - LOAD_MORE_THRESHOLD) {
+                    loadMoreSuggestions();
+                }
+            }
+        });
+
         // Display and update the editor text counter (starts it at 0)
         updateEditorTextCount();
 
@@ -311,15 +356,54 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
     public List<String> onQueryReceived(@NonNull QueryToken queryToken) {
         // Pass the query token to a host receiver
         if (mHostQueryTokenReceiver != null) {
+            QueryToken previousQueryToken = mLatestQueryToken;
+            mLatestQueryToken = queryToken;
+            mLatestQueryTokenCancelled = false;
+
+            // Characters were deleted from the token, so query again rather than relying on earlier empty results
+            if (previousQueryToken != null && isStrictPrefix(queryToken, previousQueryToken)) {
+                mNegativeResultCache.invalidateExtensionsOf(queryToken);
+            }
+
+            // Skip the query if every bucket routed for the token had no results for a token that this one extends
+            // Note: Only the routing table guarantees which buckets are displayed for the token, the host receiver may
+            // return other buckets than for the previous token
+            SuggestionRoutingTable routingTable = mRoutingTable;
+            Set<String> routedBuckets = (routingTable != null) ? routingTable.getBuckets(queryToken) : null;
+            if (routedBuckets != null && mNegativeResultCache.isKnownEmpty(routedBuckets, queryToken)) {
+                mSkippedQueryToken = queryToken;
+                mSuggestionsAdapter.notifyQueryTokenReceived(queryToken, Collections.<String>emptyList());
+                displaySuggestions(false);
+                return Collections.emptyList();
+            }
+
+            mSkippedQueryToken = null;
             List<String> buckets = mHostQueryTokenReceiver.onQueryReceived(queryToken);
             mSuggestionsAdapter.notifyQueryTokenReceived(queryToken, buckets);
         }
         return Collections.emptyList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onQueryCancelled(@NonNull QueryToken queryToken) {
+        if (queryToken.equals(mLatestQueryToken)) {
+            mLatestQueryTokenCancelled = true;
+        }
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.notifyQueryTokenCancelled(queryToken);
+        }
+        // Note: The host receiver is not told about tokens that were never sent to it
+        if (mHostQueryTokenReceiver != null && !queryToken.equals(mSkippedQueryToken)) {
+            mHostQueryTokenReceiver.onQueryCancelled(queryToken);
+        }
+    }
+
 
     // --------------------------------------------------
-    // SuggestionsResultListener Implementation
+    // StreamingSuggestionsResultListener Implementation
     // --------------------------------------------------
 
     /**
@@ -327,8 +411,24 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
      */
     @Override
     public void onReceiveSuggestionsResult(final @NonNull SuggestionsResult result, final @NonNull String bucket) {
-        // Add the mentions and notify the editor/dropdown of the changes on the UI thread
-        post(() -> {
+        // Drop results for superseded or cancelled tokens without posting them to the UI thread
+        if (isStale(result.getQueryToken())) {
+            return;
+        }
+
+        // Add the mentions and notify the editor/dropdown of the changes on the UI thread, with the other results received
+        // before the next frame
+        enqueueResult(() -> {
+            // The token may have been superseded while this was waiting to run
+            if (isStale(result.getQueryToken())) {
+                return;
+            }
+            // Remember buckets without results, so that queries for longer tokens can be skipped
+            if (result.getSuggestions().isEmpty()) {
+                mNegativeResultCache.put(bucket, result.getQueryToken());
+            } else {
+                mNegativeResultCache.remove(bucket, result.getQueryToken());
+            }
             if (mSuggestionsAdapter != null) {
                 mSuggestionsAdapter.addSuggestions(result, bucket, mMentionsEditText);
             }
@@ -340,6 +440,119 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onReceiveSuggestionsChunk(final @NonNull SuggestionsResult chunk, final @NonNull String bucket) {
+        if (isStale(chunk.getQueryToken())) {
+            return;
+        }
+
+        enqueueResult(() -> {
+            if (isStale(chunk.getQueryToken())) {
+                return;
+            }
+            if (mSuggestionsAdapter != null) {
+                mSuggestionsAdapter.appendSuggestions(chunk, bucket, mMentionsEditText);
+            }
+            if (mWaitingForFirstResult && mSuggestionsList != null && !chunk.getSuggestions().isEmpty()) {
+                mSuggestionsList.setSelection(0);
+                mWaitingForFirstResult = false;
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onSuggestionsResultComplete(final @NonNull QueryToken queryToken,
+                                            final @NonNull String bucket,
+                                            final boolean hasMore) {
+        if (isStale(queryToken)) {
+            return;
+        }
+
+        enqueueResult(() -> {
+            if (isStale(queryToken) || mSuggestionsAdapter == null) {
+                return;
+            }
+            int count = mSuggestionsAdapter.completeSuggestions(queryToken, bucket, hasMore, mMentionsEditText);
+            if (count == 0 && !hasMore) {
+                mNegativeResultCache.put(bucket, queryToken);
+            } else {
+                mNegativeResultCache.remove(bucket, queryToken);
+            }
+        });
+    }
+
+    /**
+     * Queues a change to the suggestions, to be applied on the UI thread when the next frame is drawn. All of the changes
+     * queued before the frame are applied together, so the list of suggestions is only rebuilt and refreshed once.
+     *
+     * @param apply the change to apply (on the UI thread)
+     */
+    private void enqueueResult(final @NonNull Runnable apply) {
+        mPendingResults.add(apply);
+        if (mApplyResultsScheduled.compareAndSet(false, true)) {
+            postOnAnimation(mApplyPendingResults);
+        }
+    }
+
+    /**
+     * Applies every change queued by {@link #enqueueResult(Runnable)}. Runs on the UI thread, once per frame at most.
+     */
+    private void applyPendingResults() {
+        // Note: Changes queued from now on are applied on the next frame
+        mApplyResultsScheduled.set(false);
+        SuggestionsAdapter adapter = mSuggestionsAdapter;
+        if (adapter != null) {
+            adapter.beginBatch();
+        }
+        Runnable apply;
+        while ((apply = mPendingResults.poll()) != null) {
+            apply.run();
+        }
+        if (adapter != null) {
+            adapter.endBatch(mMentionsEditText);
+        }
+    }
+
+    /**
+     * Asks the host for the next page of suggestions from every bucket that has more for the current query.
+     */
+    private void loadMoreSuggestions() {
+        QueryToken queryToken = mLatestQueryToken;
+        if (mLoadMoreSuggestionsListener == null || mSuggestionsAdapter == null || queryToken == null
+                || mLatestQueryTokenCancelled) {
+            return;
+        }
+        Map<String, Integer> requests = mSuggestionsAdapter.requestMoreSuggestions(queryToken);
+        for (Map.Entry<String, Integer> request : requests.entrySet()) {
+            mLoadMoreSuggestionsListener.onLoadMoreSuggestions(queryToken, request.getKey(), request.getValue());
+        }
+    }
+
+    /**
+     * Determines if results for the given {@link QueryToken} are no longer needed, i.e. if a different token has been
+     * sent to the host receiver since, or if the token has been cancelled.
+     *
+     * @param queryToken the {@link QueryToken} that results were generated for
+     *
+     * @return true if the results should be ignored
+     */
+    private boolean isStale(@NonNull QueryToken queryToken) {
+        QueryToken latestQueryToken = mLatestQueryToken;
+        return latestQueryToken != null && (!latestQueryToken.equals(queryToken) || mLatestQueryTokenCancelled);
+    }
+
+    private static boolean isStrictPrefix(@NonNull QueryToken prefix, @NonNull QueryToken queryToken) {
+        String prefixString = prefix.getTokenString();
+        String tokenString = queryToken.getTokenString();
+        return prefixString.length() < tokenString.length() && tokenString.startsWith(prefixString);
+    }
+
     // --------------------------------------------------
     // SuggestionsManager Implementation
     // --------------------------------------------------
@@ -464,6 +677,19 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
         return mMentionsEditText.getCurrentTokenString();
     }
 
+    /**
+     * Convenience method for {@link MentionsEditText#getCurrentTokenMatch()}.
+     *
+     * @return a {@link TokenMatch} representing the current token (only valid until the text or selection changes)
+     */
+    @NonNull
+    public TokenMatch getCurrentTokenMatch() {
+        if (mMentionsEditText == null) {
+            return new TokenMatch();
+        }
+        return mMentionsEditText.getCurrentTokenMatch();
+    }
+
     /**
      * Convenience method for {@link MentionsEditText#getCurrentKeywordsString()}.
      *
@@ -661,6 +887,40 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
         mHostQueryTokenReceiver = client;
     }
 
+    /**
+     * Sets the policy that decides when query tokens generated by the embedded {@link MentionsEditText} are sent to
+     * the receiver, i.e. to debounce queries while the user is typing.
+     *
+     * @param policy the {@link QueryDispatchPolicy} to use
+     */
+    public void setQueryDispatchPolicy(final @NonNull QueryDispatchPolicy policy) {
+        if (mMentionsEditText != null) {
+            mMentionsEditText.setQueryDispatchPolicy(policy);
+        }
+    }
+
+    /**
+     * Sets how long to remember that a bucket returned no results for a token. While every bucket routed for a token
+     * (see {@link #setSuggestionRoutingTable(SuggestionRoutingTable)}) is known to have no results for it, queries for
+     * longer tokens that extend it are not sent to the receiver. Queries are never skipped for tokens without a route.
+     *
+     * @param ttlMillis the time to remember each empty result, in milliseconds
+     */
+    public void setNegativeResultTtlMillis(final long ttlMillis) {
+        mNegativeResultCache.setTtlMillis(ttlMillis);
+    }
+
+    /**
+     * Sets the listener to ask for the next page of suggestions when the user scrolls near the end of the suggestions,
+     * for buckets that stream their results using {@link #onReceiveSuggestionsChunk(SuggestionsResult, String)} and
+     * {@link #onSuggestionsResultComplete(QueryToken, String, boolean)}.
+     *
+     * @param listener the {@link OnLoadMoreSuggestionsListener} to use, or null to never load more suggestions
+     */
+    public void setOnLoadMoreSuggestionsListener(final @Nullable OnLoadMoreSuggestionsListener listener) {
+        mLoadMoreSuggestionsListener = listener;
+    }
+
     /**
      * Sets a listener for anyone interested in specific actions of the {@link RichEditorView}.
      *
@@ -692,4 +952,19 @@ public class RichEditorView extends RelativeLayout implements TextWatcher, Query
             mSuggestionsAdapter.setSuggestionsListBuilder(suggestionsListBuilder);
         }
     }
+
+    /**
+     * Sets the {@link SuggestionRoutingTable} deciding which buckets handle the tokens of each explicit character, and
+     * implicit tokens. The editor does not wait for, or display, the results of buckets that are not routed for a
+     * token. The same table is typically given to the
+     * {@link com.linkedin.android.spyglass.suggestions.impl.SuggestionSourceOrchestrator} querying the buckets.
+     *
+     * @param routingTable the {@link SuggestionRoutingTable} to use, or null for all buckets to handle all tokens
+     */
+    public void setSuggestionRoutingTable(final @Nullable SuggestionRoutingTable routingTable) {
+        mRoutingTable = routingTable;
+        if (mSuggestionsAdapter != null) {
+            mSuggestionsAdapter.setRoutingTable(routingTable);
+        }
+    }
 }
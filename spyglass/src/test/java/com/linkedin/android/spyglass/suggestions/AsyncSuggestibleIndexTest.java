@@ -0,0 +1,126 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class AsyncSuggestibleIndexTest {
+
+    @Test
+    public void testParallelBuildMatchesSequentialIndex() {
+        List<TestMention> mentions = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            mentions.add(new TestMention("Name" + (i % 97) + " Last" + i));
+        }
+        AsyncSuggestibleIndex<TestMention> asyncIndex = new AsyncSuggestibleIndex<>(mentions,
+                suggestible -> Collections.singletonList(suggestible.getSuggestiblePrimaryText()),
+                new ForkJoinPool(4), 100);
+        SuggestibleIndex<TestMention> index = new SuggestibleIndex<>(mentions);
+
+        asyncIndex.awaitIndex();
+        assertTrue(asyncIndex.isComplete());
+        assertEquals(5000, asyncIndex.getIndexedCount());
+        for (String keywords : new String[] {"name1", "last12", "name5 last", "", "x"}) {
+            QueryToken query = new QueryToken(keywords);
+            assertEquals(index.getSuggestions(query), asyncIndex.getSuggestions(query));
+        }
+    }
+
+    @Test
+    public void testQueriesAnsweredWhileBuilding() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        List<TestMention> mentions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            mentions.add(new TestMention("Ready" + i));
+        }
+        for (int i = 0; i < 10; i++) {
+            mentions.add(new TestMention("Slow" + i));
+        }
+
+        // The second shard cannot be indexed until released
+        AsyncSuggestibleIndex<TestMention> asyncIndex = new AsyncSuggestibleIndex<>(mentions, suggestible -> {
+            if (suggestible.getSuggestiblePrimaryText().startsWith("Slow")) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return Collections.singletonList(suggestible.getSuggestiblePrimaryText());
+        }, new ForkJoinPool(2), 10);
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (asyncIndex.getIndexedCount() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(asyncIndex.isComplete());
+        assertEquals(10, asyncIndex.getSuggestions(new QueryToken("ready")).size());
+        assertTrue(asyncIndex.getSuggestions(new QueryToken("slow")).isEmpty());
+
+        release.countDown();
+        asyncIndex.awaitIndex();
+        assertEquals(10, asyncIndex.getSuggestions(new QueryToken("slow")).size());
+        assertEquals(20, asyncIndex.getSuggestions(new QueryToken("")).size());
+    }
+
+    @Test
+    public void testBuildFailureSurfaced() throws Exception {
+        List<TestMention> mentions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            mentions.add(new TestMention("Good" + i));
+        }
+        mentions.add(new TestMention("Bad"));
+        final IllegalStateException failure = new IllegalStateException("No name");
+        AsyncSuggestibleIndex<TestMention> asyncIndex = new AsyncSuggestibleIndex<>(mentions, suggestible -> {
+            if (suggestible.getSuggestiblePrimaryText().equals("Bad")) {
+                throw failure;
+            }
+            return Collections.singletonList(suggestible.getSuggestiblePrimaryText());
+        }, new ForkJoinPool(2), 10);
+
+        boolean thrown = false;
+        try {
+            asyncIndex.awaitIndex();
+        } catch (RuntimeException e) {
+            thrown = true;
+        }
+        assertTrue(thrown);
+        assertFalse(asyncIndex.isComplete());
+        assertEquals(failure, asyncIndex.getBuildFailure());
+
+        // The other shards can still be queried once indexed
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (asyncIndex.getIndexedCount() < 10 && System.currentTimeMillis() < deadline) {
+            Thread.yield();
+        }
+        assertEquals(10, asyncIndex.getSuggestions(new QueryToken("good")).size());
+    }
+}
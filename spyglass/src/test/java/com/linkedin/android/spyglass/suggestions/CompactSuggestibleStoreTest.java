@@ -0,0 +1,112 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Parcel;
+
+import com.linkedin.android.spyglass.mentions.Mentionable;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class CompactSuggestibleStoreTest {
+
+    private final CompactSuggestibleStore mStore = new CompactSuggestibleStore.Builder(1)
+            .setDeleteStyle(Mentionable.MentionDeleteStyle.PARTIAL_NAME_DELETE)
+            .add(10, "John Smith", "john.png")
+            .add(11, "Jane  Johnson", "")
+            .add(12, "Smitty Werben", "smitty.png")
+            .add(13, "Zoë Émile", "zoe.png")
+            .build();
+
+    // Note: The matching rules are tested by KeyTableTest
+
+    @Test
+    public void testUtf8KeyOrder() {
+        // Keys are sorted by their UTF-8 bytes, in which supplementary characters (stored as surrogates, which sort
+        // before U+E000 in chars) sort after all other characters
+        CompactSuggestibleStore store = new CompactSuggestibleStore.Builder(0)
+                .add(1, "\uD83D\uDE00 Grin")
+                .add(2, "\uFF41lpha")
+                .add(3, "Zoë Émile")
+                .add(4, "Grace")
+                .build();
+        assertEquals(Arrays.asList("\uD83D\uDE00 Grin"), names(store.getSuggestions("\uD83D\uDE00", 10)));
+        assertEquals(Arrays.asList("\uFF41lpha"), names(store.getSuggestions("\uFF41", 10)));
+        assertEquals(Arrays.asList("Zoë Émile"), names(store.getSuggestions("émi", 10)));
+        assertEquals(Arrays.asList("Grace", "\uD83D\uDE00 Grin"), names(store.getSuggestions("gr", 10)));
+    }
+
+    @Test
+    public void testGetSuggestions() {
+        assertEquals(Arrays.asList("John Smith", "Jane  Johnson"), names(mStore.getSuggestions(new QueryToken("jo"))));
+        assertEquals(Arrays.asList("Zoë Émile"), names(mStore.getSuggestions(new QueryToken("@zo", '@'))));
+        assertTrue(mStore.getSuggestions(new QueryToken("bob")).isEmpty());
+    }
+
+    @Test
+    public void testEmptyKeywords() {
+        assertEquals(4, mStore.size());
+        assertEquals(4, mStore.getSuggestions(new QueryToken("")).size());
+        assertEquals(1, mStore.getSuggestions(" ", 1).size());
+        assertTrue(new CompactSuggestibleStore.Builder(0).build().getSuggestions("a", 10).isEmpty());
+    }
+
+    @Test
+    public void testEntry() {
+        CompactSuggestibleStore.Entry entry = mStore.getSuggestions("werben", 10).get(0);
+        assertEquals(12, entry.getSuggestibleId());
+        assertEquals("smitty.png", entry.getField(0));
+        assertEquals("Smitty", entry.getTextForDisplayMode(Mentionable.MentionDisplayMode.PARTIAL));
+        assertEquals(Mentionable.MentionDeleteStyle.PARTIAL_NAME_DELETE, entry.getDeleteStyle());
+    }
+
+    @Test
+    public void testParcelEntry() {
+        CompactSuggestibleStore.Entry entry = mStore.getSuggestions("zo", 10).get(0);
+        Parcel parcel = Parcel.obtain();
+        entry.writeToParcel(parcel, 0);
+        parcel.setDataPosition(0);
+        CompactSuggestibleStore.Entry restored = CompactSuggestibleStore.Entry.CREATOR.createFromParcel(parcel);
+        parcel.recycle();
+
+        assertEquals(entry, restored);
+        assertEquals("Zoë Émile", restored.getSuggestiblePrimaryText());
+        assertEquals("zoe.png", restored.getField(0));
+        assertEquals(Mentionable.MentionDeleteStyle.PARTIAL_NAME_DELETE, restored.getDeleteStyle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFieldCount() {
+        new CompactSuggestibleStore.Builder(2).add(1, "Alice", "a.png");
+    }
+
+    private static List<String> names(List<CompactSuggestibleStore.Entry> entries) {
+        List<String> names = new ArrayList<>();
+        for (CompactSuggestibleStore.Entry entry : entries) {
+            names.add(entry.getSuggestiblePrimaryText());
+        }
+        return names;
+    }
+}
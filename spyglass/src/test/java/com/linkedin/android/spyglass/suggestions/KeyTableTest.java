@@ -0,0 +1,137 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class KeyTableTest {
+
+    private final KeyTable mTable = new StringKeyTable(
+            "John Smith",
+            "Jane  Johnson",
+            "Smitty Werben",
+            "Alice",
+            "Jo Johnson");
+
+    @Test
+    public void testSplitKeywords() {
+        assertEquals(Arrays.asList("jo", "sm"), Arrays.asList(KeyTable.splitKeywords("  Jo \t SM ")));
+        assertEquals(0, KeyTable.splitKeywords(" ").length);
+    }
+
+    @Test
+    public void testPrefixOfAnyWord() {
+        assertRecords("smit", 0, 2);
+        assertRecords("al", 3);
+        assertRecords("werben", 2);
+        assertRecords("bob");
+        assertRecords("smithy");
+    }
+
+    @Test
+    public void testFollowingWords() {
+        assertRecords("jo sm", 0);
+        assertRecords("ja jo", 1);
+        assertRecords("smitty w", 2);
+        assertRecords("sm jo");
+        assertRecords("jo sm x");
+    }
+
+    @Test
+    public void testRecordsInKeyOrderAndOnlyOnce() {
+        // "jo johnson" < "john smith" < "johnson" (of records 1 and 4)
+        assertRecords("jo", 4, 0, 1);
+    }
+
+    @Test
+    public void testMaxResults() {
+        assertEquals(Arrays.toString(new int[] {1}), Arrays.toString(mTable.findRecords(new String[] {"j"}, 1)));
+        assertEquals(0, mTable.findRecords(new String[] {"j"}, 0).length);
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            names.add("Name" + i);
+        }
+        KeyTable table = new StringKeyTable(names.toArray(new String[0]));
+        assertEquals(100, table.findRecords(new String[] {"name"}, Integer.MAX_VALUE).length);
+        assertEquals(40, table.findRecords(new String[] {"name"}, 40).length);
+    }
+
+    private void assertRecords(String keywords, int... records) {
+        int[] found = mTable.findRecords(KeyTable.splitKeywords(keywords), Integer.MAX_VALUE);
+        assertEquals(Arrays.toString(records), Arrays.toString(found));
+    }
+
+    /**
+     * {@link KeyTable} of the chars of every word suffix of the given names, sorted like a {@link SuggestibleIndex}.
+     */
+    private static class StringKeyTable extends KeyTable {
+
+        private final List<String> mKeys = new ArrayList<>();
+        private final List<Integer> mRecords = new ArrayList<>();
+
+        StringKeyTable(String... names) {
+            final List<String> keys = new ArrayList<>();
+            List<Integer> records = new ArrayList<>();
+            for (int record = 0; record < names.length; record++) {
+                String name = SuggestionDirectoryWriter.normalize(names[record]);
+                int start = 0;
+                do {
+                    keys.add(name.substring(start));
+                    records.add(record);
+                    start = name.indexOf(' ', start) + 1;
+                } while (start > 0);
+            }
+            Integer[] order = new Integer[keys.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (first, second) -> keys.get(first).compareTo(keys.get(second)));
+            for (int i : order) {
+                mKeys.add(keys.get(i));
+                mRecords.add(records.get(i));
+            }
+        }
+
+        @Override
+        int getKeyCount() {
+            return mKeys.size();
+        }
+
+        @Override
+        int getKeyLength(int key) {
+            return mKeys.get(key).length();
+        }
+
+        @Override
+        int getKeyUnit(int key, int offset) {
+            return mKeys.get(key).charAt(offset);
+        }
+
+        @Override
+        int getKeyRecord(int key) {
+            return mRecords.get(key);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class SuggestibleIndexTest {
+
+    private final SuggestibleIndex<TestMention> mIndex = new SuggestibleIndex<>(Arrays.asList(
+            new TestMention("John Smith"),
+            new TestMention("Jane  Johnson"),
+            new TestMention("Smitty Werben"),
+            new TestMention("Alice")));
+
+    // Note: The matching rules are tested by KeyTableTest
+
+    @Test
+    public void testGetSuggestions() {
+        assertEquals(Arrays.asList("John Smith", "Jane  Johnson"), names(mIndex.getSuggestions(new QueryToken("jo"))));
+        assertEquals(Arrays.asList("Alice"), names(mIndex.getSuggestions(new QueryToken("@al", '@'))));
+        assertTrue(mIndex.getSuggestions(new QueryToken("bob")).isEmpty());
+    }
+
+    @Test
+    public void testEmptyKeywords() {
+        assertEquals(4, mIndex.size());
+        assertEquals(4, mIndex.getSuggestions(new QueryToken("")).size());
+        assertEquals(Arrays.asList("John Smith", "Jane  Johnson"), names(mIndex.getSuggestions(" ", 2)));
+    }
+
+    @Test
+    public void testMultipleNames() {
+        SuggestibleIndex<TestMention> index = new SuggestibleIndex<>(Arrays.asList(new TestMention("Robert Paulson")),
+                suggestible -> Arrays.asList(suggestible.getSuggestiblePrimaryText(), "Bob"));
+        assertEquals(1, index.getSuggestions(new QueryToken("bo")).size());
+        assertEquals(1, index.getSuggestions(new QueryToken("rob")).size());
+    }
+
+    private static List<String> names(List<? extends Suggestible> suggestions) {
+        List<String> names = new ArrayList<>();
+        for (Suggestible suggestion : suggestions) {
+            names.add(suggestion.getSuggestiblePrimaryText());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class SuggestionDirectoryTest {
+
+    // Note: The matching rules are tested by KeyTableTest
+
+    @Test
+    public void testFindRecords() throws Exception {
+        SuggestionDirectory directory = new SuggestionDirectory(ByteBuffer.wrap(writeDirectory()));
+        assertEquals(4, directory.getRecordCount());
+        int lastField = directory.getFieldIndex("last");
+        assertEquals(1, lastField);
+        assertEquals(-1, directory.getFieldIndex("missing"));
+
+        assertRecords(directory, "jo", 0, 1);
+        assertRecords(directory, "bob");
+        assertEquals(4, directory.findRecords("", Integer.MAX_VALUE).length);
+        assertEquals(2, directory.findRecords(" ", 2).length);
+
+        assertEquals("Jane  Johnson", directory.getPrimaryText(1));
+        assertEquals("Johnson", directory.getField(1, lastField));
+        assertEquals("", directory.getField(3, lastField));
+    }
+
+    @Test
+    public void testOpenFile() throws Exception {
+        File file = File.createTempFile("people", ".spyd");
+        try {
+            try (FileOutputStream out = new FileOutputStream(file)) {
+                out.write(writeDirectory());
+            }
+            SuggestionDirectory directory = SuggestionDirectory.open(file);
+            assertRecords(directory, "smitty", 2);
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void testInvalidDirectory() {
+        byte[] bytes = writeDirectoryUnchecked();
+        try {
+            new SuggestionDirectory(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length - 2)));
+            fail("Truncated directory should not be read");
+        } catch (IOException e) {
+            // Expected
+        }
+        bytes[0] = 0;
+        try {
+            new SuggestionDirectory(ByteBuffer.wrap(bytes));
+            fail("Directory without magic number should not be read");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static byte[] writeDirectory() throws IOException {
+        SuggestionDirectoryWriter writer = new SuggestionDirectoryWriter(Arrays.asList("first", "last"));
+        writer.addRecord("John Smith", Arrays.asList("John", "Smith"));
+        writer.addRecord("Jane  Johnson", Arrays.asList("Jane", "Johnson"));
+        writer.addRecord("Smitty Werben", Arrays.asList("Smitty", "Werben"));
+        writer.addRecord("Alice", Arrays.asList("Alice", ""));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(out);
+        return out.toByteArray();
+    }
+
+    private static byte[] writeDirectoryUnchecked() {
+        try {
+            return writeDirectory();
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static void assertRecords(SuggestionDirectory directory, String keywords, int... records) {
+        int[] found = directory.findRecords(keywords, Integer.MAX_VALUE);
+        Arrays.sort(found);
+        assertEquals(Arrays.toString(records), Arrays.toString(found));
+    }
+}
@@ -18,6 +18,8 @@ import com.linkedin.android.spyglass.BuildConfig;
 import com.linkedin.android.spyglass.mentions.TestMention;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
+import com.linkedin.android.spyglass.tokenization.interfaces.TokenSource;
 import com.linkedin.android.spyglass.ui.MentionsEditText;
 import com.linkedin.android.spyglass.ui.RichEditorView;
 import com.linkedin.android.spyglass.ui.wrappers.RichEditorFragment;
@@ -28,13 +30,18 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.linkedin.android.utils.SpyglassRobolectricRunner.startFragment;
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
 
 @RunWith(SpyglassRobolectricRunner.class)
 public class SuggestionsAdapterTest {
@@ -69,6 +76,370 @@ public class SuggestionsAdapterTest {
         assertEquals(2, mAdapter.getCount());
     }
 
+    @Test
+    public void testWaitingBucketsAndResultsExpire() throws Exception {
+        mAdapter.setBucketTimeoutMillis(1000);
+        mAdapter.setResultTtlMillis(5000);
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+
+        // Wait on two buckets, only one of which reports back
+        QueryToken query = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person", "Group"));
+        assertEquals(1, mAdapter.getWaitingQueryTokenCount());
+        assertEquals(2, mAdapter.getWaitingBucketCount());
+        ArrayList<Suggestible> mentions = new ArrayList<>();
+        mentions.add(new TestMention("FirstName LastName"));
+        mAdapter.addSuggestions(new SuggestionsResult(query, mentions), "Person", mentionsEditText);
+        assertEquals(1, mAdapter.getWaitingBucketCount());
+        assertEquals(1, mAdapter.getResultCount());
+
+        // The bucket that never reports back stops being waited on after its deadline
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        assertEquals(0, mAdapter.getWaitingQueryTokenCount());
+        assertEquals(0, mAdapter.getWaitingBucketCount());
+        assertEquals(1, mAdapter.getResultCount());
+
+        // Results are discarded after their TTL
+        ShadowLooper.idleMainLooper(4000, TimeUnit.MILLISECONDS);
+        assertEquals(0, mAdapter.getResultCount());
+    }
+
+    @Test
+    public void testWaitingQueryTokensAreBounded() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            mAdapter.notifyQueryTokenReceived(new QueryToken("Token" + i), Arrays.asList("Person"));
+        }
+        assertEquals(SuggestionsAdapter.MAX_WAITING_QUERY_TOKENS, mAdapter.getWaitingQueryTokenCount());
+        assertEquals(SuggestionsAdapter.MAX_WAITING_QUERY_TOKENS, mAdapter.getWaitingBucketCount());
+
+        // Only the most recent tokens are kept: cancelling an older token changes nothing
+        int oldestKept = 100 - SuggestionsAdapter.MAX_WAITING_QUERY_TOKENS;
+        mAdapter.notifyQueryTokenCancelled(new QueryToken("Token" + (oldestKept - 1)));
+        assertEquals(SuggestionsAdapter.MAX_WAITING_QUERY_TOKENS, mAdapter.getWaitingQueryTokenCount());
+        for (int i = oldestKept; i < 100; i++) {
+            mAdapter.notifyQueryTokenCancelled(new QueryToken("Token" + i));
+        }
+        assertEquals(0, mAdapter.getWaitingQueryTokenCount());
+    }
+
+    @Test
+    public void testResultBucketsAreBounded() throws Exception {
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+        QueryToken query = new QueryToken("First");
+        for (int i = 0; i < 100; i++) {
+            ArrayList<Suggestible> mentions = new ArrayList<>();
+            mentions.add(new TestMention("First" + i));
+            mAdapter.addSuggestions(new SuggestionsResult(query, mentions), "Bucket" + i, mentionsEditText);
+        }
+        assertEquals(SuggestionsAdapter.MAX_RESULT_BUCKETS, mAdapter.getResultCount());
+
+        // Only the results of the most recent buckets are kept
+        List<String> displayed = new ArrayList<>();
+        for (Suggestible suggestion : mAdapter.getSuggestions()) {
+            displayed.add(suggestion.getSuggestiblePrimaryText());
+        }
+        assertEquals(SuggestionsAdapter.MAX_RESULT_BUCKETS, displayed.size());
+        for (int i = 100 - SuggestionsAdapter.MAX_RESULT_BUCKETS; i < 100; i++) {
+            assertTrue(displayed.contains("First" + i));
+        }
+    }
+
+    @Test
+    public void testRefinedSuggestionsShownWhileWaiting() throws Exception {
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("Joh");
+        QueryToken shortQuery = new QueryToken("Joh");
+        mAdapter.notifyQueryTokenReceived(shortQuery, Arrays.asList("Person"));
+        ArrayList<Suggestible> mentions = new ArrayList<>();
+        mentions.add(new TestMention("John Smith"));
+        mentions.add(new TestMention("Mary Johnson"));
+        mentions.add(new TestMention("Johanna Doe"));
+        mAdapter.addSuggestions(new SuggestionsResult(shortQuery, mentions), "Person", mentionsEditText);
+        assertEquals(3, mAdapter.getCount());
+
+        // While waiting for the results of the longer token, the cached results are filtered locally
+        mRichEditor.setText("John");
+        QueryToken longQuery = new QueryToken("John");
+        mAdapter.notifyQueryTokenReceived(longQuery, Arrays.asList("Person"));
+        assertEquals(2, mAdapter.getCount());
+        assertEquals(1, mAdapter.getWaitingBucketCount());
+
+        // The actual results replace the provisional ones
+        ArrayList<Suggestible> newMentions = new ArrayList<>();
+        newMentions.add(new TestMention("John Smith"));
+        mAdapter.addSuggestions(new SuggestionsResult(longQuery, newMentions), "Person", mentionsEditText);
+        assertEquals(1, mAdapter.getCount());
+        assertEquals(0, mAdapter.getWaitingBucketCount());
+    }
+
+    @Test
+    public void testBuildSuggestionsOnExecutor() throws Exception {
+        List<Runnable> builds = new ArrayList<>();
+        mAdapter.setBuildExecutor(builds::add);
+        addMentionToEditor(new TestMention("FirstName LastName"), "First", "Person");
+        assertEquals(0, mAdapter.getCount());
+
+        // Only the finished list is handed to the UI thread
+        assertEquals(1, builds.size());
+        builds.get(0).run();
+        ShadowLooper.idleMainLooper();
+        assertEquals(1, mAdapter.getCount());
+
+        // A list superseded by newer results while being built is discarded
+        addMentionToEditor(new TestMention("Second Name"), "Second", "Group");
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        ArrayList<Suggestible> mentions = new ArrayList<>();
+        mentions.add(new TestMention("SecondName LastName"));
+        mAdapter.addSuggestions(new SuggestionsResult(new QueryToken("Second"), mentions), "Person", mentionsEditText);
+        assertEquals(3, builds.size());
+        builds.get(1).run();
+        ShadowLooper.idleMainLooper();
+        assertEquals(1, mAdapter.getCount());
+        builds.get(2).run();
+        ShadowLooper.idleMainLooper();
+        assertEquals(2, mAdapter.getCount());
+    }
+
+    @Test
+    public void testStreamedSuggestions() throws Exception {
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+        QueryToken query = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person"));
+
+        // Every chunk is displayed as soon as it is received
+        mAdapter.appendSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName A"))),
+                "Person", mentionsEditText);
+        assertEquals(1, mAdapter.getCount());
+        assertEquals(1, mAdapter.getWaitingBucketCount());
+        mAdapter.appendSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName B"))),
+                "Person", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+        assertEquals(2, mAdapter.completeSuggestions(query, "Person", true, mentionsEditText));
+        assertEquals(0, mAdapter.getWaitingBucketCount());
+
+        // The next page is only requested once
+        Map<String, Integer> requests = mAdapter.requestMoreSuggestions(query);
+        assertEquals(1, requests.size());
+        assertEquals(2, (int) requests.get("Person"));
+        assertEquals(1, mAdapter.getWaitingBucketCount());
+        assertTrue(mAdapter.requestMoreSuggestions(query).isEmpty());
+    }
+
+    @Test
+    public void testPagedSuggestionsWithDropDeadline() throws Exception {
+        mAdapter.setDisplayPolicy(new SuggestionsDisplayPolicy.Builder()
+                .setDropDeadlineMillis(1000)
+                .build());
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+        QueryToken query = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person"));
+        mAdapter.appendSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName A"))),
+                "Person", mentionsEditText);
+        assertEquals(1, mAdapter.completeSuggestions(query, "Person", true, mentionsEditText));
+
+        // Pages requested long after the token was received are not dropped
+        ShadowLooper.idleMainLooper(5000, TimeUnit.MILLISECONDS);
+        assertEquals(1, mAdapter.requestMoreSuggestions(query).size());
+        mAdapter.appendSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName B"))),
+                "Person", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+        assertEquals(2, mAdapter.completeSuggestions(query, "Person", true, mentionsEditText));
+
+        // But a page that takes longer than the drop deadline after being requested is dropped
+        assertEquals(1, mAdapter.requestMoreSuggestions(query).size());
+        ShadowLooper.idleMainLooper(1500, TimeUnit.MILLISECONDS);
+        mAdapter.appendSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName C"))),
+                "Person", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+    }
+
+    @Test
+    public void testDisplayPolicy() throws Exception {
+        mAdapter.setDisplayPolicy(new SuggestionsDisplayPolicy.Builder()
+                .setMinBuckets(2)
+                .setDisplayDeadlineMillis(500)
+                .setDropDeadlineMillis(2000)
+                .build());
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+        QueryToken query = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person", "Group", "Company"));
+
+        // Not displayed until enough buckets report back, or the display deadline passes
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName A"))),
+                "Person", mentionsEditText);
+        assertEquals(0, mAdapter.getCount());
+        ShadowLooper.idleMainLooper(500, TimeUnit.MILLISECONDS);
+        assertEquals(1, mAdapter.getCount());
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName B"))),
+                "Group", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+
+        // Results after the drop deadline are dropped
+        ShadowLooper.idleMainLooper(2000, TimeUnit.MILLISECONDS);
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName C"))),
+                "Company", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+
+        Map<String, BucketLatencyStats> stats = mAdapter.getBucketLatencyStats();
+        assertEquals(0, stats.get("Person").getLastMillis());
+        assertEquals(500, stats.get("Group").getLastMillis());
+        assertEquals(1, stats.get("Company").getDroppedCount());
+    }
+
+    @Test
+    public void testDisplayPolicyIgnoresProvisionalResults() throws Exception {
+        mAdapter.setDisplayPolicy(new SuggestionsDisplayPolicy.Builder()
+                .setMinBuckets(2)
+                .build());
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("Joh");
+        QueryToken shortQuery = new QueryToken("Joh");
+        mAdapter.notifyQueryTokenReceived(shortQuery, Arrays.asList("Person", "Group"));
+        List<Suggestible> mentions = Arrays.asList(new TestMention("John Smith"), new TestMention("Johanna Doe"));
+        mAdapter.addSuggestions(new SuggestionsResult(shortQuery, mentions), "Person", mentionsEditText);
+        mAdapter.addSuggestions(new SuggestionsResult(shortQuery, Arrays.asList(new TestMention("John Group"))),
+                "Group", mentionsEditText);
+        assertEquals(3, mAdapter.getCount());
+
+        // The results refined from the shorter token do not count as buckets reporting for the longer one
+        mRichEditor.setText("John");
+        QueryToken longQuery = new QueryToken("John");
+        mAdapter.notifyQueryTokenReceived(longQuery, Arrays.asList("Person", "Group"));
+        assertEquals(3, mAdapter.getCount());
+        mAdapter.addSuggestions(new SuggestionsResult(longQuery, Arrays.asList(new TestMention("John Smith"))),
+                "Person", mentionsEditText);
+        assertEquals(3, mAdapter.getCount());
+        mAdapter.addSuggestions(new SuggestionsResult(longQuery, Arrays.asList(new TestMention("John Group"))),
+                "Group", mentionsEditText);
+        assertEquals(2, mAdapter.getCount());
+    }
+
+    @Test
+    public void testPlaceholderRowsReservedForPendingBuckets() throws Exception {
+        mAdapter.setBucketTimeoutMillis(1000);
+        mAdapter.setDisplayPolicy(new SuggestionsDisplayPolicy.Builder()
+                .setBucketOrder(Arrays.asList("Person", "Group", "Company"))
+                .setPlaceholderRows(2)
+                .build());
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("First");
+        QueryToken query = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person", "Group", "Company"));
+
+        // Rows are reserved for every ordered bucket until it reports back, so later results do not shift earlier ones
+        assertEquals(6, mAdapter.getCount());
+        assertFalse(mAdapter.isEnabled(0));
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName B"))),
+                "Group", mentionsEditText);
+        assertEquals(5, mAdapter.getCount());
+        assertTrue(mAdapter.getItem(1) instanceof SuggestionPlaceholder);
+        assertEquals("FirstName B", mAdapter.getItem(2).getSuggestiblePrimaryText());
+        assertTrue(mAdapter.isEnabled(2));
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName A"))),
+                "Person", mentionsEditText);
+        assertEquals(4, mAdapter.getCount());
+        assertEquals("FirstName A", mAdapter.getItem(0).getSuggestiblePrimaryText());
+        assertEquals("Company", ((SuggestionPlaceholder) mAdapter.getItem(3)).getBucket());
+
+        // The rows of a bucket that is no longer waited on are released
+        ShadowLooper.idleMainLooper(1000, TimeUnit.MILLISECONDS);
+        assertEquals(2, mAdapter.getCount());
+    }
+
+    @Test
+    public void testRoutingTable() throws Exception {
+        mAdapter.setRoutingTable(new SuggestionRoutingTable.Builder()
+                .route('@', "Person")
+                .route('#', "Topic")
+                .build());
+        MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        mRichEditor.setText("@First");
+        QueryToken query = new QueryToken("@First", '@');
+
+        // Only the buckets routed for the explicit character are waited for
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person", "Topic"));
+        assertEquals(1, mAdapter.getWaitingBucketCount());
+
+        // Results of other buckets are ignored
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstTopic"))),
+                "Topic", mentionsEditText);
+        assertEquals(0, mAdapter.getCount());
+        mAdapter.addSuggestions(new SuggestionsResult(query, Arrays.asList(new TestMention("FirstName A"))),
+                "Person", mentionsEditText);
+        assertEquals(1, mAdapter.getCount());
+        assertEquals(0, mAdapter.getWaitingBucketCount());
+
+        // Implicit tokens have no route, so all buckets handle them
+        QueryToken implicitQuery = new QueryToken("First");
+        mAdapter.notifyQueryTokenReceived(implicitQuery, Arrays.asList("Person", "Topic"));
+        assertEquals(2, mAdapter.getWaitingBucketCount());
+    }
+
+    @Test
+    public void testAddSuggestionsFromAnotherThread() throws Exception {
+        mRichEditor.setText("First");
+        final QueryToken query = new QueryToken("First");
+        final MentionsEditText mentionsEditText = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");
+        final List<Thread> tokenizingThreads = new ArrayList<>();
+        final TokenSource source = new TokenSource() {
+            @Override
+            public String getCurrentTokenString() {
+                return mentionsEditText.getCurrentTokenString();
+            }
+
+            @Override
+            public QueryToken getQueryTokenIfValid() {
+                return mentionsEditText.getQueryTokenIfValid();
+            }
+
+            @Override
+            public TokenMatch getCurrentTokenMatch() {
+                tokenizingThreads.add(Thread.currentThread());
+                return mentionsEditText.getCurrentTokenMatch();
+            }
+        };
+        mAdapter.notifyQueryTokenReceived(query, Arrays.asList("Person"));
+
+        // Results are added from a worker while the UI thread keeps reading the list
+        final List<Integer> workerCounts = new ArrayList<>();
+        Thread worker = new Thread(() -> {
+            for (int i = 0; i < 100; i++) {
+                List<Suggestible> mentions = Arrays.asList(new TestMention("FirstName " + i),
+                        new TestMention("FirstName Other" + i));
+                mAdapter.addSuggestions(new SuggestionsResult(query, mentions), "Person", source);
+                workerCounts.add(mAdapter.getCount());
+            }
+        });
+        worker.start();
+        while (worker.isAlive()) {
+            // Readers always see a complete list
+            int count = mAdapter.getCount();
+            assertTrue(count == 0 || count == 2);
+            assertTrue(count == 0 || mAdapter.getItem(1) != null);
+        }
+        worker.join();
+
+        // The edited text is only tokenized, and the list only applied to the views, on the UI thread
+        for (int count : workerCounts) {
+            assertEquals(0, count);
+        }
+        assertTrue(tokenizingThreads.isEmpty());
+        assertFalse(mRichEditor.isDisplayingSuggestions());
+        ShadowLooper.idleMainLooper();
+        assertFalse(tokenizingThreads.isEmpty());
+        for (Thread thread : tokenizingThreads) {
+            assertEquals(Thread.currentThread(), thread);
+        }
+        assertEquals(2, mAdapter.getCount());
+        assertEquals("FirstName 99", mAdapter.getItem(0).getSuggestiblePrimaryText());
+        assertTrue(mRichEditor.isDisplayingSuggestions());
+    }
+
     private void addMentionToEditor(Suggestible mention, String typedText, String bucket) throws Exception {
         QueryToken query = new QueryToken(typedText);
         mRichEditor.setText(typedText);
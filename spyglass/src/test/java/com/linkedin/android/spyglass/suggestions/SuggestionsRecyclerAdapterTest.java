@@ -0,0 +1,170 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+package com.linkedin.android.spyglass.suggestions;
+
+import android.os.Parcel;
+import android.view.ViewGroup;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class SuggestionsRecyclerAdapterTest {
+
+    private final List<Runnable> mDiffs = new ArrayList<>();
+    private final List<String> mUpdates = new ArrayList<>();
+    private TestRecyclerAdapter mAdapter;
+
+    @Before
+    public void setUp() throws Exception {
+        mAdapter = new TestRecyclerAdapter();
+        mAdapter.registerAdapterDataObserver(new RecyclerView.AdapterDataObserver() {
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+                mUpdates.add("changed " + positionStart + " " + itemCount);
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                mUpdates.add("inserted " + positionStart + " " + itemCount);
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                mUpdates.add("removed " + positionStart + " " + itemCount);
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                mUpdates.add("moved " + fromPosition + " " + toPosition);
+            }
+        });
+    }
+
+    @Test
+    public void testItemsMatchedById() throws Exception {
+        // The first list is inserted without diffing
+        mAdapter.submitSuggestions(Arrays.asList(new TestSuggestible(1, "Alice"), new TestSuggestible(2, "Bob")));
+        assertEquals(Arrays.asList("inserted 0 2"), mUpdates);
+        assertEquals(2, mAdapter.getItemCount());
+        mUpdates.clear();
+
+        // Suggestions with the same id are moved rather than removed and inserted again, and only rebound if their
+        // contents changed
+        mAdapter.submitSuggestions(Arrays.asList(new TestSuggestible(2, "Bob"), new TestSuggestible(1, "Alicia")));
+        assertEquals(1, mDiffs.size());
+        mDiffs.get(0).run();
+        ShadowLooper.idleMainLooper();
+        int moved = 0;
+        int changed = 0;
+        for (String update : mUpdates) {
+            assertTrue(update, update.startsWith("moved") || update.startsWith("changed"));
+            moved += update.startsWith("moved") ? 1 : 0;
+            changed += update.startsWith("changed") ? 1 : 0;
+        }
+        assertEquals(1, moved);
+        assertEquals(1, changed);
+        assertEquals("Alicia", mAdapter.getItem(1).getSuggestiblePrimaryText());
+    }
+
+    @Test
+    public void testStaleSubmissionsDropped() throws Exception {
+        mAdapter.submitSuggestions(Arrays.asList(new TestSuggestible(1, "Alice")));
+        List<Suggestible> stale = Arrays.<Suggestible>asList(new TestSuggestible(2, "Bob"));
+        List<Suggestible> latest = Arrays.<Suggestible>asList(new TestSuggestible(3, "Carol"));
+        mAdapter.submitSuggestions(stale);
+        mAdapter.submitSuggestions(latest);
+        assertEquals(2, mDiffs.size());
+
+        // The latest list is displayed even if its differences are computed first
+        mDiffs.get(1).run();
+        ShadowLooper.idleMainLooper();
+        assertEquals("Carol", mAdapter.getItem(0).getSuggestiblePrimaryText());
+
+        // The superseded list is discarded once its differences are computed
+        mUpdates.clear();
+        mDiffs.get(0).run();
+        ShadowLooper.idleMainLooper();
+        assertEquals(0, mUpdates.size());
+        assertEquals(1, mAdapter.getItemCount());
+        assertSame(latest.get(0), mAdapter.getItem(0));
+    }
+
+    // --------------------------------------------------
+    // Test classes
+    // --------------------------------------------------
+
+    private class TestRecyclerAdapter extends SuggestionsRecyclerAdapter<RecyclerView.ViewHolder> {
+
+        TestRecyclerAdapter() {
+            super(mDiffs::add);
+        }
+
+        @NonNull
+        @Override
+        public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecyclerView.ViewHolder holder, int position) {
+        }
+    }
+
+    private static class TestSuggestible implements Suggestible {
+
+        private final int mId;
+        private final String mText;
+
+        TestSuggestible(int id, String text) {
+            mId = id;
+            mText = text;
+        }
+
+        @Override
+        public int getSuggestibleId() {
+            return mId;
+        }
+
+        @Override
+        public String getSuggestiblePrimaryText() {
+            return mText;
+        }
+
+        @Override
+        public int describeContents() {
+            return 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel dest, int flags) {
+            dest.writeString(mText);
+        }
+    }
+}
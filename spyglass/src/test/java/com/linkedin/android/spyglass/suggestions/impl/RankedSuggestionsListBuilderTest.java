@@ -0,0 +1,70 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionScorer;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class RankedSuggestionsListBuilderTest {
+
+    @Test
+    public void testTopSuggestionsAcrossBuckets() {
+        QueryToken query = new QueryToken("jo");
+        Map<String, SuggestionsResult> results = new HashMap<>();
+        results.put("People", new SuggestionsResult(query, Arrays.asList(
+                new TestMention("Jo A"), new TestMention("Jo B"), new TestMention("Jo C"))));
+        results.put("Companies", new SuggestionsResult(query, Arrays.asList(
+                new TestMention("Jo Corp"), new TestMention("Jo B"))));
+        results.put("Stale", new SuggestionsResult(new QueryToken("j"), Arrays.asList(new TestMention("Jo Z"))));
+
+        // Rank companies first, then by position, and only keep the best three
+        SuggestionScorer scorer = (suggestion, bucket, position, keywords) ->
+                (bucket.equals("Companies") ? 10 : 0) - position;
+        List<Suggestible> suggestions = new RankedSuggestionsListBuilder(3, scorer).buildSuggestions(results, "jo");
+        assertEquals(3, suggestions.size());
+        assertEquals("Jo Corp", suggestions.get(0).getSuggestiblePrimaryText());
+        assertEquals("Jo B", suggestions.get(1).getSuggestiblePrimaryText());
+        assertEquals("Jo A", suggestions.get(2).getSuggestiblePrimaryText());
+    }
+
+    @Test
+    public void testDuplicatesRemoved() {
+        QueryToken query = new QueryToken("jo");
+        Map<String, SuggestionsResult> results = new HashMap<>();
+        results.put("People-Database", new SuggestionsResult(query, Arrays.asList(
+                new TestMention("Jo A"), new TestMention("Jo B"))));
+        results.put("People-Network", new SuggestionsResult(query, Arrays.asList(
+                new TestMention("Jo B"), new TestMention("Jo A"), new TestMention("Jo C"))));
+
+        List<Suggestible> suggestions = new RankedSuggestionsListBuilder(10).buildSuggestions(results, "jo");
+        assertEquals(3, suggestions.size());
+        assertEquals("Jo C", suggestions.get(2).getSuggestiblePrimaryText());
+    }
+}
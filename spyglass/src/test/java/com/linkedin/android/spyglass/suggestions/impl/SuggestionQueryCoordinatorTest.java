@@ -0,0 +1,151 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class SuggestionQueryCoordinatorTest {
+
+    private SuggestionQueryCoordinator mCoordinator;
+    private CountingSource mSource;
+
+    @Before
+    public void setUp() {
+        mCoordinator = new SuggestionQueryCoordinator();
+        mSource = new CountingSource("People");
+    }
+
+    @Test
+    public void testConcurrentQueriesShared() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        mSource.mStarted = started;
+        mSource.mRelease = release;
+        SuggestionSource shared = mCoordinator.share(mSource);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<? extends Suggestible>> first = executor.submit(() -> shared.getSuggestions(new QueryToken("jo")));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            Future<List<? extends Suggestible>> second =
+                    executor.submit(() -> shared.getSuggestions(new QueryToken("@jo", '@')));
+            assertEquals(1, mCoordinator.getInFlightCount());
+            release.countDown();
+
+            // Both editors receive the suggestions of the single query
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, mSource.mQueryCount.get());
+            assertEquals(0, mCoordinator.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRecentSuggestionsKeptUntilExpired() throws Exception {
+        mCoordinator.setTtlMillis(1000);
+        mCoordinator.getSuggestions(mSource, new QueryToken("jo"));
+        mCoordinator.getSuggestions(mSource, new QueryToken("jo"));
+        assertEquals(1, mSource.mQueryCount.get());
+
+        // Different keywords and different buckets are queried separately
+        mCoordinator.getSuggestions(mSource, new QueryToken("joh"));
+        mCoordinator.getSuggestions(new CountingSource("Cities"), new QueryToken("jo"));
+        assertEquals(2, mSource.mQueryCount.get());
+
+        ShadowLooper.idleMainLooper(1500, TimeUnit.MILLISECONDS);
+        mCoordinator.getSuggestions(mSource, new QueryToken("jo"));
+        assertEquals(3, mSource.mQueryCount.get());
+    }
+
+    @Test
+    public void testFailedQueriesNotKept() throws Exception {
+        mSource.mFailure = new IllegalStateException("Offline");
+        try {
+            mCoordinator.getSuggestions(mSource, new QueryToken("jo"));
+            fail("Failure should be thrown");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        mSource.mFailure = null;
+        assertEquals(1, mCoordinator.getSuggestions(mSource, new QueryToken("jo")).size());
+        assertEquals(2, mSource.mQueryCount.get());
+    }
+
+    // --------------------------------------------------
+    // Helpers
+    // --------------------------------------------------
+
+    private static class CountingSource implements SuggestionSource {
+
+        private final String mBucket;
+        private final AtomicInteger mQueryCount = new AtomicInteger();
+        private volatile CountDownLatch mStarted;
+        private volatile CountDownLatch mRelease;
+        private volatile Exception mFailure;
+
+        CountingSource(String bucket) {
+            mBucket = bucket;
+        }
+
+        @NonNull
+        @Override
+        public String getBucket() {
+            return mBucket;
+        }
+
+        @NonNull
+        @Override
+        public List<? extends Suggestible> getSuggestions(@NonNull QueryToken queryToken) throws Exception {
+            mQueryCount.incrementAndGet();
+            if (mStarted != null) {
+                mStarted.countDown();
+                mRelease.await();
+            }
+            if (mFailure != null) {
+                throw mFailure;
+            }
+            return Collections.singletonList(new TestMention("Jo A"));
+        }
+    }
+}
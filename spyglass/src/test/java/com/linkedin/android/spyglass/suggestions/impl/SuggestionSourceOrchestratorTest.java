@@ -0,0 +1,235 @@
+/*
+* Copyright 2015 LinkedIn Corp. All rights reserved.
+*
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+*
+* http://www.apache.org/licenses/LICENSE-2.0
+*
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+*/
+
+
+
+package com.linkedin.android.spyglass.suggestions.impl;
+
+import androidx.annotation.NonNull;
+
+import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.suggestions.SuggestionRoutingTable;
+import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
+import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionSource;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsResultListener;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.utils.SpyglassRobolectricRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(SpyglassRobolectricRunner.class)
+public class SuggestionSourceOrchestratorTest {
+
+    private final List<Runnable> mQueuedTasks = new ArrayList<>();
+    private final List<String> mReceivedBuckets = new ArrayList<>();
+    private final List<SuggestionsResult> mReceivedResults = new ArrayList<>();
+    private SuggestionsResultListener mListener;
+
+    @Before
+    public void setUp() {
+        mQueuedTasks.clear();
+        mReceivedBuckets.clear();
+        mReceivedResults.clear();
+        mListener = (result, bucket) -> {
+            mReceivedResults.add(result);
+            mReceivedBuckets.add(bucket);
+        };
+    }
+
+    @Test
+    public void testQueriesRoutedSources() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(mQueuedTasks::add)
+                .addSource(new TestSource("People", "Jo A", "Jo B"))
+                .addSource(new TestSource("Cities", "Jo City") {
+                    @Override
+                    public boolean canHandle(@NonNull QueryToken queryToken) {
+                        return queryToken.isExplicit();
+                    }
+                })
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        // Implicit query only goes to the people source
+        QueryToken query = new QueryToken("jo");
+        assertEquals(Collections.singletonList("People"), orchestrator.onQueryReceived(query));
+        assertEquals(1, orchestrator.getPendingQueryCount());
+        runQueuedTasks();
+        assertEquals(Collections.singletonList("People"), mReceivedBuckets);
+        assertEquals(query, mReceivedResults.get(0).getQueryToken());
+        assertEquals(2, mReceivedResults.get(0).getSuggestions().size());
+        assertEquals(0, orchestrator.getPendingQueryCount());
+
+        // Explicit query goes to both
+        QueryToken explicitQuery = new QueryToken("@jo", '@');
+        assertEquals(Arrays.asList("People", "Cities"), orchestrator.onQueryReceived(explicitQuery));
+        runQueuedTasks();
+        assertEquals(Arrays.asList("People", "People", "Cities"), mReceivedBuckets);
+    }
+
+    @Test
+    public void testRoutingTableLimitsQueriedSources() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(mQueuedTasks::add)
+                .addSource(new TestSource("People", "Jo A"))
+                .addSource(new TestSource("Topics", "Jobs"))
+                .setRoutingTable(new SuggestionRoutingTable.Builder()
+                        .route('@', "People")
+                        .route('#', "Topics")
+                        .routeImplicit("People", "Topics")
+                        .build())
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        assertEquals(Collections.singletonList("Topics"), orchestrator.onQueryReceived(new QueryToken("#jo", '#')));
+        assertEquals(1, mQueuedTasks.size());
+        runQueuedTasks();
+        assertEquals(Collections.singletonList("Topics"), mReceivedBuckets);
+
+        assertEquals(Arrays.asList("People", "Topics"), orchestrator.onQueryReceived(new QueryToken("jo")));
+        assertEquals(2, mQueuedTasks.size());
+    }
+
+    @Test
+    public void testFailedSourceReportsEmptyBucket() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(mQueuedTasks::add)
+                .addSource(new TestSource("People") {
+                    @NonNull
+                    @Override
+                    public List<? extends Suggestible> getSuggestions(@NonNull QueryToken queryToken) throws Exception {
+                        throw new IllegalStateException("Offline");
+                    }
+                })
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        orchestrator.onQueryReceived(new QueryToken("jo"));
+        runQueuedTasks();
+        assertEquals(Collections.singletonList("People"), mReceivedBuckets);
+        assertTrue(mReceivedResults.get(0).getSuggestions().isEmpty());
+    }
+
+    @Test
+    public void testSlowSourceTimesOut() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(mQueuedTasks::add)
+                .addSource(new TestSource("People", "Jo A"), 100)
+                .addSource(new TestSource("Cities", "Jo B"), 500)
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        orchestrator.onQueryReceived(new QueryToken("jo"));
+        ShadowLooper.idleMainLooper(200, TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList("People"), mReceivedBuckets);
+        ShadowLooper.idleMainLooper(400, TimeUnit.MILLISECONDS);
+        assertEquals(Arrays.asList("People", "Cities"), mReceivedBuckets);
+        assertEquals(0, orchestrator.getPendingQueryCount());
+
+        // Finishing the queries late does not report them again
+        runQueuedTasks();
+        assertEquals(2, mReceivedBuckets.size());
+        assertTrue(mReceivedResults.get(0).getSuggestions().isEmpty());
+    }
+
+    @Test
+    public void testCancelledAndSupersededQueriesNotReported() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(mQueuedTasks::add)
+                .addSource(new TestSource("People", "Jo A"))
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        QueryToken cancelled = new QueryToken("j");
+        orchestrator.onQueryReceived(cancelled);
+        orchestrator.onQueryCancelled(cancelled);
+        assertEquals(0, orchestrator.getPendingQueryCount());
+
+        orchestrator.onQueryReceived(new QueryToken("jo"));
+        QueryToken latest = new QueryToken("joh");
+        orchestrator.onQueryReceived(latest);
+        assertEquals(1, orchestrator.getPendingQueryCount());
+
+        runQueuedTasks();
+        ShadowLooper.idleMainLooper(10000, TimeUnit.MILLISECONDS);
+        assertEquals(Collections.singletonList("People"), mReceivedBuckets);
+        assertEquals(latest, mReceivedResults.get(0).getQueryToken());
+    }
+
+    @Test
+    public void testRejectedQueriesReportEmptyBucket() {
+        SuggestionSourceOrchestrator orchestrator = new SuggestionSourceOrchestrator.Builder()
+                .setExecutor(task -> {
+                    throw new RejectedExecutionException();
+                })
+                .addSource(new TestSource("People", "Jo A"))
+                .build();
+        orchestrator.setSuggestionsResultListener(mListener);
+
+        assertEquals(Collections.singletonList("People"), orchestrator.onQueryReceived(new QueryToken("jo")));
+        assertEquals(Collections.singletonList("People"), mReceivedBuckets);
+        assertTrue(mReceivedResults.get(0).getSuggestions().isEmpty());
+        assertEquals(0, orchestrator.getPendingQueryCount());
+    }
+
+    // --------------------------------------------------
+    // Helpers
+    // --------------------------------------------------
+
+    private void runQueuedTasks() {
+        List<Runnable> tasks = new ArrayList<>(mQueuedTasks);
+        mQueuedTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static class TestSource implements SuggestionSource {
+
+        private final String mBucket;
+        private final List<Suggestible> mSuggestions = new ArrayList<>();
+
+        TestSource(String bucket, String... names) {
+            mBucket = bucket;
+            for (String name : names) {
+                mSuggestions.add(new TestMention(name));
+            }
+        }
+
+        @NonNull
+        @Override
+        public String getBucket() {
+            return mBucket;
+        }
+
+        @NonNull
+        @Override
+        public List<? extends Suggestible> getSuggestions(@NonNull QueryToken queryToken) throws Exception {
+            return mSuggestions;
+        }
+    }
+}
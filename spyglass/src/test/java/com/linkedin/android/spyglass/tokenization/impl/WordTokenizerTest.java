@@ -20,6 +20,7 @@ import androidx.annotation.Nullable;
 import com.linkedin.android.spyglass.BuildConfig;
 import com.linkedin.android.spyglass.mentions.MentionSpan;
 import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
 import com.linkedin.android.spyglass.ui.RichEditorView;
 import com.linkedin.android.spyglass.ui.wrappers.RichEditorFragment;
 import com.linkedin.android.utils.SpyglassRobolectricRunner;
@@ -28,6 +29,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
 import static com.linkedin.android.utils.SpyglassRobolectricRunner.startFragment;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertFalse;
@@ -177,6 +181,38 @@ public class WordTokenizerTest {
         assertEquals(expectedEndIndex, mTokenizer.findTokenEnd(mRichEditor.getText(), cursor));
     }
 
+    @Test
+    public void testFindTokenMatch() {
+        setTestSpan("Shoulong Li", 14);
+        Spanned text = mRichEditor.getText();
+        TokenMatch match = new TokenMatch();
+
+        // The single-pass match must agree with the individual tokenizer methods at every cursor position
+        for (int cursor = 0; cursor <= text.length(); cursor++) {
+            int start = mTokenizer.findTokenStart(text, cursor);
+            int end = mTokenizer.findTokenEnd(text, cursor);
+            mTokenizer.findTokenMatch(text, cursor, match);
+            assertEquals(start, match.getStart());
+            assertEquals(end, match.getEnd());
+            assertEquals(mTokenizer.isValidMention(text, start, end), match.isValid());
+            assertEquals(text.subSequence(start, end).toString(), match.getTokenString());
+        }
+
+        // Explicit token, "@Nathan Hi"
+        mTokenizer.findTokenMatch(text, 40, match);
+        assertTrue(match.isValid());
+        assertTrue(match.isExplicit());
+        assertEquals('@', match.getExplicitChar());
+        assertEquals("Nathan Hi", match.getKeywords().toString());
+        assertEquals("@Nathan Hi", match.toQueryToken().getTokenString());
+
+        // Empty token directly after the span is not valid
+        mTokenizer.findTokenMatch(text, 25, match);
+        assertFalse(match.isValid());
+        assertFalse(match.isExplicit());
+        assertEquals(null, match.toQueryToken());
+    }
+
     @Test
     public void testIsExplicit() {
         CharSequence text = mRichEditor.getText();
@@ -417,4 +453,106 @@ public class WordTokenizerTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void testCodePointSet() {
+        CodePointSet set = new CodePointSet.Builder()
+                                           .addType(Character.SPACE_SEPARATOR)
+                                           .addRange(0x100, 0x2FF)
+                                           .addAll("@\uD834\uDD00")
+                                           .build();
+        assertTrue(set.contains(' '));
+        assertTrue(set.contains('\u3000'));
+        assertTrue(set.contains('@'));
+        assertTrue(set.contains(0x100));
+        assertTrue(set.contains(0x2FF));
+        assertTrue(set.contains(0x1D100));
+        assertFalse(set.contains('a'));
+        assertFalse(set.contains(0xFF));
+        assertFalse(set.contains(0x300));
+        assertFalse(set.contains('\uD834'));
+        assertFalse(set.contains(0x1D101));
+        assertFalse(set.contains(-1));
+        assertFalse(set.contains(Character.MAX_CODE_POINT + 1));
+        assertTrue(new CodePointSet.Builder().build().isEmpty());
+    }
+
+    @Test
+    public void testWordBreakCharSet() {
+        // Use all Unicode whitespace and a supplementary character as word-breaking characters
+        WordTokenizerConfig config = new WordTokenizerConfig.Builder()
+                                                            .setThreshold(3)
+                                                            .setMaxNumKeywords(2)
+                                                            .setWordBreakCharSet(new CodePointSet.Builder()
+                                                                                     .addType(Character.SPACE_SEPARATOR)
+                                                                                     .add(0x1D100)
+                                                                                     .build())
+                                                            .build();
+        WordTokenizer tokenizer = new WordTokenizer(config);
+        assertTrue(tokenizer.isWordBreakingChar('\u3000'));
+        assertTrue(tokenizer.isWordBreakingChar('.'));
+
+        // Ideographic space before an explicit character
+        mRichEditor.setText("Hi\u3000@Nat");
+        Spanned text = mRichEditor.getText();
+        assertTrue(tokenizer.isExplicit(text, text.length()));
+        assertEquals(3, tokenizer.findTokenStart(text, text.length()));
+
+        // Surrogate pair between words counts as a single word-breaking character
+        mRichEditor.setText("xx ab\uD834\uDD00cd ef");
+        text = mRichEditor.getText();
+        assertEquals(7, tokenizer.findTokenStart(text, text.length()));
+        assertEquals(5, tokenizer.findTokenEnd(text, 3));
+        mRichEditor.setText("abcd\uD834\uDD00efgh");
+        text = mRichEditor.getText();
+        assertEquals(0, tokenizer.findTokenStart(text, text.length()));
+
+        // Supplementary letters are letters
+        mRichEditor.setText("\uD835\uDC00\uD835\uDC01");
+        text = mRichEditor.getText();
+        assertTrue(tokenizer.isValidMention(text, 0, text.length()));
+    }
+
+    @Test
+    public void testGetExplicitCharDoesNotAllocate() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (!(threadBean instanceof com.sun.management.ThreadMXBean)) {
+            // Allocation counting is not supported by this JVM
+            return;
+        }
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        long threadId = Thread.currentThread().getId();
+        if (!allocationBean.isThreadAllocatedMemorySupported() || !allocationBean.isThreadAllocatedMemoryEnabled()) {
+            return;
+        }
+
+        // Type next to an explicit character on a line following a mention
+        mRichEditor.setText("Test mentions Shoulong Li\nand hello @Nat");
+        Spanned text = mRichEditor.getText();
+        mRichEditor.getText().setSpan(new MentionSpan(new TestMention("Shoulong Li")), 14, 25,
+                                      Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+        int cursor = text.length();
+        TokenMatch match = new TokenMatch();
+
+        // Warm up so that class loading and JIT compilation are not counted
+        int iterations = 10000;
+        int explicitCount = 0;
+        for (int i = 0; i < iterations; i++) {
+            explicitCount += mTokenizer.getExplicitChar(text, cursor) == '@' ? 1 : 0;
+            mTokenizer.findTokenMatch(text, cursor, match);
+        }
+
+        long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            explicitCount += mTokenizer.getExplicitChar(text, cursor) == '@' ? 1 : 0;
+            explicitCount += mTokenizer.isExplicit(text, cursor - 1) ? 1 : 0;
+            mTokenizer.findTokenMatch(text, cursor, match);
+        }
+        long allocated = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        assertEquals(iterations * 3, explicitCount);
+        assertTrue(match.isValid());
+        // Any allocation per call would add up to far more than this over all of the iterations
+        assertTrue("Allocated " + allocated + " bytes", allocated < 1024);
+    }
+
 }
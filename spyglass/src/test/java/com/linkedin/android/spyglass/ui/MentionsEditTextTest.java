@@ -22,20 +22,29 @@ import androidx.test.core.app.ApplicationProvider;
 import com.linkedin.android.spyglass.BuildConfig;
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.TokenMatch;
+import com.linkedin.android.spyglass.tokenization.impl.DebouncedQueryDispatchPolicy;
 import com.linkedin.android.spyglass.tokenization.impl.WordTokenizer;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.utils.SpyglassRobolectricRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.concurrent.TimeUnit;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
 /**
@@ -107,6 +116,100 @@ public class MentionsEditTextTest {
         assertTrue(mEditText.getText().toString().startsWith("Hello "));
     }
 
+    @Test
+    public void testCurrentTokenMatchWhileTyping() {
+        WordTokenizer tokenizer = new WordTokenizer();
+        mEditText.setTokenizer(tokenizer);
+        Editable editable = mEditText.getEditableText();
+
+        // Type one character at a time, then delete some of them
+        String typed = "Hi @Nathan and Sam";
+        for (int i = 0; i < typed.length(); i++) {
+            editable.insert(mEditText.getSelectionStart(), typed.substring(i, i + 1));
+            assertCurrentTokenMatches(tokenizer);
+        }
+        for (int i = 0; i < 10; i++) {
+            int cursor = mEditText.getSelectionStart();
+            editable.delete(cursor - 1, cursor);
+            assertCurrentTokenMatches(tokenizer);
+        }
+        assertEquals("Nath", mEditText.getCurrentKeywordsString());
+        assertTrue(mEditText.isCurrentlyExplicit());
+
+        // Insert a mention and keep typing after it
+        mEditText.insertMention(new TestMention("Nathan Hi"));
+        assertCurrentTokenMatches(tokenizer);
+        editable.insert(mEditText.getSelectionStart(), " S");
+        assertCurrentTokenMatches(tokenizer);
+        editable.insert(mEditText.getSelectionStart(), "a");
+        assertCurrentTokenMatches(tokenizer);
+
+        // Move the cursor
+        mEditText.setSelection(2);
+        assertCurrentTokenMatches(tokenizer);
+    }
+
+    private void assertCurrentTokenMatches(WordTokenizer tokenizer) {
+        TokenMatch expected = tokenizer.findTokenMatch(mEditText.getText(), mEditText.getSelectionStart(),
+                                                       new TokenMatch());
+        TokenMatch actual = mEditText.getCurrentTokenMatch();
+        assertEquals(expected.getStart(), actual.getStart());
+        assertEquals(expected.getEnd(), actual.getEnd());
+        assertEquals(expected.getExplicitChar(), actual.getExplicitChar());
+        assertEquals(expected.isValid(), actual.isValid());
+    }
+
+    @Test
+    public void testDebouncedQueryDispatch() {
+        QueryTokenReceiver receiver = mock(QueryTokenReceiver.class);
+        mEditText.setQueryTokenReceiver(receiver);
+        mEditText.setQueryDispatchPolicy(new DebouncedQueryDispatchPolicy.Builder()
+                                                                         .setDebounceMillis(100)
+                                                                         .build());
+        Editable editable = mEditText.getEditableText();
+
+        // Type quickly, only the token the user paused on should be queried
+        String typed = "@Nat";
+        for (int i = 0; i < typed.length(); i++) {
+            editable.insert(mEditText.getSelectionStart(), typed.substring(i, i + 1));
+        }
+        verify(receiver, never()).onQueryReceived(any(QueryToken.class));
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        verify(receiver, times(1)).onQueryReceived(any(QueryToken.class));
+        verify(receiver).onQueryReceived(new QueryToken("@Nat", '@'));
+
+        // Typing and deleting a character ends on the same token, which is not queried again
+        editable.insert(mEditText.getSelectionStart(), "h");
+        int cursor = mEditText.getSelectionStart();
+        editable.delete(cursor - 1, cursor);
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        verify(receiver, times(1)).onQueryReceived(any(QueryToken.class));
+
+        // Ending the token drops anything still waiting
+        editable.insert(mEditText.getSelectionStart(), "h");
+        editable.insert(mEditText.getSelectionStart(), " ");
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        verify(receiver, times(1)).onQueryReceived(any(QueryToken.class));
+    }
+
+    @Test
+    public void testQueryCancelledWhenSuperseded() {
+        QueryTokenReceiver receiver = mock(QueryTokenReceiver.class);
+        mEditText.setQueryTokenReceiver(receiver);
+        Editable editable = mEditText.getEditableText();
+
+        // Each new token cancels the previous one
+        editable.insert(mEditText.getSelectionStart(), "@");
+        editable.insert(mEditText.getSelectionStart(), "N");
+        verify(receiver).onQueryCancelled(new QueryToken("@", '@'));
+        verify(receiver, never()).onQueryCancelled(new QueryToken("@N", '@'));
+
+        // Ending the token cancels the last one sent
+        editable.insert(mEditText.getSelectionStart(), " ");
+        verify(receiver).onQueryCancelled(new QueryToken("@N", '@'));
+        verify(receiver, times(2)).onQueryCancelled(any(QueryToken.class));
+    }
+
     @Test
     public void testInsertMentionWithoutToken() {
         Mentionable mention = new TestMention("FirstName MiddleName LastName");
@@ -23,9 +23,12 @@ import com.linkedin.android.spyglass.BuildConfig;
 import com.linkedin.android.spyglass.mentions.MentionSpan;
 import com.linkedin.android.spyglass.mentions.Mentionable;
 import com.linkedin.android.spyglass.mentions.TestMention;
+import com.linkedin.android.spyglass.suggestions.SuggestionRoutingTable;
 import com.linkedin.android.spyglass.suggestions.SuggestionsResult;
 import com.linkedin.android.spyglass.suggestions.interfaces.Suggestible;
+import com.linkedin.android.spyglass.suggestions.interfaces.SuggestionsListBuilder;
 import com.linkedin.android.spyglass.tokenization.QueryToken;
+import com.linkedin.android.spyglass.tokenization.interfaces.QueryTokenReceiver;
 import com.linkedin.android.spyglass.ui.wrappers.RichEditorFragment;
 import com.linkedin.android.utils.SpyglassRobolectricRunner;
 import com.linkedin.android.utils.TestUtils;
@@ -33,15 +36,24 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import static com.linkedin.android.utils.SpyglassRobolectricRunner.startFragment;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 /**
  * This is a series of tests for the RichEditorView. It will use hard
@@ -107,6 +119,63 @@ public class RichEditorViewTest {
         verify(suggestionsList).setSelection(0);
     }
 
+    @Test
+    public void testEmptyResultsSkipQueriesForLongerTokens() throws Exception {
+        QueryTokenReceiver receiver = mock(QueryTokenReceiver.class);
+        when(receiver.onQueryReceived(any(QueryToken.class))).thenReturn(Arrays.asList("People"));
+        mRichEditor.setQueryTokenReceiver(receiver);
+        mRichEditor.setSuggestionRoutingTable(new SuggestionRoutingTable.Builder().route('@', "People").build());
+
+        QueryToken query = new QueryToken("@xqz", '@');
+        mRichEditor.onQueryReceived(query);
+        mRichEditor.onReceiveSuggestionsResult(new SuggestionsResult(query, new ArrayList<>()), "People");
+
+        // Tokens extending a token without results are not sent to the receiver, nor cancelled there
+        QueryToken longerQuery = new QueryToken("@xqzt", '@');
+        mRichEditor.onQueryReceived(longerQuery);
+        verify(receiver, never()).onQueryReceived(longerQuery);
+        mRichEditor.onQueryCancelled(longerQuery);
+        verify(receiver, never()).onQueryCancelled(longerQuery);
+
+        // Deleting characters invalidates the empty result
+        mRichEditor.onQueryReceived(query);
+        mRichEditor.onQueryReceived(longerQuery);
+        verify(receiver, times(2)).onQueryReceived(query);
+        verify(receiver).onQueryReceived(longerQuery);
+    }
+
+    @Test
+    public void testQueriesNotSkippedWithoutRoutes() throws Exception {
+        QueryTokenReceiver receiver = mock(QueryTokenReceiver.class);
+        when(receiver.onQueryReceived(any(QueryToken.class))).thenReturn(Arrays.asList("People"));
+        mRichEditor.setQueryTokenReceiver(receiver);
+
+        // Without a route, the receiver may return other buckets for a longer token, so it is always queried
+        QueryToken query = new QueryToken("@xqz", '@');
+        mRichEditor.onQueryReceived(query);
+        mRichEditor.onReceiveSuggestionsResult(new SuggestionsResult(query, new ArrayList<>()), "People");
+        QueryToken longerQuery = new QueryToken("@xqzt", '@');
+        mRichEditor.onQueryReceived(longerQuery);
+        verify(receiver).onQueryReceived(longerQuery);
+    }
+
+    @Test
+    public void testResultsReceivedInSameFrameAreAppliedTogether() throws Exception {
+        SuggestionsListBuilder builder = mock(SuggestionsListBuilder.class);
+        when(builder.buildSuggestions(anyMap(), anyString())).thenReturn(new ArrayList<>());
+        mRichEditor.setSuggestionsListBuilder(builder);
+
+        QueryToken query = new QueryToken("");
+        ShadowLooper.pauseMainLooper();
+        mRichEditor.onReceiveSuggestionsResult(new SuggestionsResult(query, new ArrayList<>()), "People");
+        mRichEditor.onReceiveSuggestionsResult(new SuggestionsResult(query, new ArrayList<>()), "Companies");
+        mRichEditor.onReceiveSuggestionsResult(new SuggestionsResult(query, new ArrayList<>()), "Groups");
+        verify(builder, never()).buildSuggestions(anyMap(), anyString());
+        ShadowLooper.unPauseMainLooper();
+        ShadowLooper.idleMainLooper(100, TimeUnit.MILLISECONDS);
+        verify(builder, times(1)).buildSuggestions(anyMap(), anyString());
+    }
+
     @Test
     public void testSuggestionsListDisablesSpellingSuggestions() throws Exception {
         EditText input = TestUtils.getPrivateField(mRichEditor, "mMentionsEditText");